@@ -0,0 +1,37 @@
+#!/usr/bin/env sh
+# Lance plusieurs agents de sonde locaux (JVM séparées) contre un nœud central.
+#
+# Usage : AGENT_TOKEN=secret ./scripts/run-agents.sh [nombre] [emplacement] [url-centrale]
+# Arrêt : Ctrl+C arrête tous les agents lancés.
+
+COUNT=${1:-3}
+LOCATION=${2:-default}
+CENTRAL_URL=${3:-http://localhost:1080}
+JAR=$(ls target/glenn-*.jar 2>/dev/null | head -n 1)
+
+if [ -z "$JAR" ]; then
+  echo "Jar introuvable : lancez d'abord 'mvn package -DskipTests'" >&2
+  exit 1
+fi
+if [ -z "$AGENT_TOKEN" ]; then
+  echo "AGENT_TOKEN doit correspondre à agent.token du nœud central" >&2
+  exit 1
+fi
+
+PIDS=""
+trap 'kill $PIDS 2>/dev/null' INT TERM EXIT
+
+i=1
+while [ "$i" -le "$COUNT" ]; do
+  java -Xmx128m -jar "$JAR" --glenn.mode=agent \
+    --agent.id="local-agent-$i" \
+    --agent.location="$LOCATION" \
+    --agent.central-url="$CENTRAL_URL" \
+    --agent.token="$AGENT_TOKEN" \
+    --logging.level.org.azirar.glenn=INFO &
+  PIDS="$PIDS $!"
+  echo "Agent local-agent-$i démarré (pid $!)"
+  i=$((i + 1))
+done
+
+wait
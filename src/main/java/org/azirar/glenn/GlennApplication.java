@@ -1,32 +1,21 @@
 package org.azirar.glenn;
 
+import org.azirar.glenn.agent.AgentApplication;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.boot.context.properties.ConfigurationProperties;
-import org.springframework.boot.jdbc.DataSourceBuilder;
-import org.springframework.context.annotation.Bean;
-import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.liquibase.LiquibaseAutoConfiguration;
 
-import javax.sql.DataSource;
-
-@SpringBootApplication
+// Pas de DataSource ni de pool JDBC : Liquibase est lancé par SchemaMigrator, l'application n'utilise que R2DBC
+@SpringBootApplication(exclude = {DataSourceAutoConfiguration.class, LiquibaseAutoConfiguration.class})
 public class GlennApplication {
 
     public static void main(String[] args) {
+        // Même artefact pour le nœud central et les agents de sonde distants
+        if (AgentApplication.isAgentMode(args)) {
+            AgentApplication.run(args);
+            return;
+        }
         SpringApplication.run(GlennApplication.class, args);
     }
-
-    @Bean
-    public WebClient.Builder webClientBuilder() {
-        return WebClient.builder()
-                .codecs(configurer -> configurer
-                        .defaultCodecs()
-                        .maxInMemorySize(16 * 1024 * 1024));
-    }
-
-    @Bean
-    @ConfigurationProperties(prefix = "spring.datasource")
-    public DataSource dataSource() {
-        return DataSourceBuilder.create().build();
-    }
 }
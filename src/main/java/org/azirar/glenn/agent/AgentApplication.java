@@ -0,0 +1,54 @@
+package org.azirar.glenn.agent;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.azirar.glenn.configs.WebClientConfig;
+import org.azirar.glenn.handlers.HealthCheckService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.Arrays;
+
+/**
+ * Mode agent : le même artefact, sans base de données, sans Liquibase ni serveur web.
+ * Pas d'auto-configuration : seuls la sonde et le client HTTP sont chargés.
+ * <p>
+ * Lancement : {@code java -jar glenn.jar --glenn.mode=agent --agent.central-url=http://central:1080
+ * --agent.token=... --agent.location=dmz} (ou {@code GLENN_MODE=agent}).
+ */
+@Profile("agent")
+@Configuration(proxyBeanMethods = false)
+@Import({WebClientConfig.class, HealthCheckService.class, ProbeAgent.class})
+public class AgentApplication {
+
+    public static final String AGENT_MODE_ARG = "--glenn.mode=agent";
+
+    public static boolean isAgentMode(String[] args) {
+        return Arrays.asList(args).contains(AGENT_MODE_ARG)
+                || "agent".equalsIgnoreCase(System.getProperty("glenn.mode", System.getenv("GLENN_MODE")));
+    }
+
+    public static void run(String[] args) {
+        // Le code AOT de l'image fast-start ne couvre que le nœud central
+        System.setProperty("spring.aot.enabled", "false");
+        new SpringApplicationBuilder(AgentApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("agent")
+                // Aucun thread non-daemon sans serveur web : on garde la JVM en vie
+                .properties("spring.main.keep-alive=true")
+                .run(args);
+    }
+
+    @Bean
+    public ObjectMapper agentObjectMapper() {
+        // Mêmes conventions que le nœud central (dates ISO, propriétés inconnues ignorées)
+        return Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+    }
+}
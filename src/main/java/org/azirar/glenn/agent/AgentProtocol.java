@@ -0,0 +1,17 @@
+package org.azirar.glenn.agent;
+
+/**
+ * Contrat HTTP entre les agents et le nœud central
+ */
+public final class AgentProtocol {
+
+    public static final String ASSIGNMENTS_PATH = "/api/agents/assignments";
+    public static final String RESULTS_PATH = "/api/agents/results";
+
+    public static final String HEADER_TOKEN = "X-Agent-Token";
+    public static final String HEADER_AGENT_ID = "X-Agent-Id";
+    public static final String HEADER_LOCATION = "X-Agent-Location";
+
+    private AgentProtocol() {
+    }
+}
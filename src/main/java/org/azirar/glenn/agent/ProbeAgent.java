@@ -0,0 +1,166 @@
+package org.azirar.glenn.agent;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.azirar.glenn.handlers.HealthCheckService;
+import org.azirar.glenn.models.MonitoredApp;
+import org.azirar.glenn.models.ProbeAssignment;
+import org.azirar.glenn.models.StatusCheck;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Boucle de l'agent : récupère régulièrement ses applications auprès du nœud central,
+ * les sonde avec la même logique que le nœud central et renvoie les résultats
+ * par lots NDJSON compressés en gzip.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class ProbeAgent {
+
+    private final HealthCheckService healthCheckService;
+    private final WebClient.Builder webClientBuilder;
+    private final ObjectMapper objectMapper;
+
+    @Value("${agent.central-url:http://localhost:1080}")
+    private String centralUrl;
+    @Value("${agent.token:}")
+    private String token;
+    @Value("${agent.id:}")
+    private String agentId;
+    @Value("${agent.location:default}")
+    private String location;
+    @Value("${agent.assignment-refresh:30000}")
+    private long assignmentRefresh;
+    @Value("${agent.batch-size:100}")
+    private int batchSize;
+    @Value("${agent.batch-timeout:1000}")
+    private long batchTimeout;
+    @Value("${monitoring.interval:10000}")
+    private long monitoringInterval;
+
+    private final Disposable.Composite running = Disposables.composite();
+    private volatile List<MonitoredApp> assignments = List.of();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (agentId == null || agentId.isBlank()) {
+            agentId = defaultAgentId();
+        }
+        log.info("🛰️ Agent {} (location {}) reporting to {}", agentId, location, centralUrl);
+
+        WebClient central = webClientBuilder.clone()
+                .baseUrl(centralUrl)
+                .defaultHeader(AgentProtocol.HEADER_TOKEN, token)
+                .defaultHeader(AgentProtocol.HEADER_AGENT_ID, agentId)
+                .defaultHeader(AgentProtocol.HEADER_LOCATION, location)
+                .build();
+
+        // Le rafraîchissement des affectations sert aussi de heartbeat
+        running.add(Flux.interval(Duration.ZERO, Duration.ofMillis(assignmentRefresh))
+                .concatMap(tick -> fetchAssignments(central))
+                .subscribe(apps -> {
+                    if (apps.size() != assignments.size()) {
+                        log.info("📋 {} applications assigned to agent {}", apps.size(), agentId);
+                    }
+                    assignments = apps;
+                }));
+
+        running.add(Flux.interval(Duration.ofMillis(monitoringInterval))
+                .flatMapIterable(tick -> assignments)
+                .flatMap(healthCheckService::performHealthCheck)
+                .bufferTimeout(batchSize, Duration.ofMillis(batchTimeout))
+                .concatMap(batch -> push(central, batch))
+                .subscribe());
+    }
+
+    @PreDestroy
+    public void stop() {
+        running.dispose();
+    }
+
+    private Mono<List<MonitoredApp>> fetchAssignments(WebClient central) {
+        return central.get()
+                .uri(AgentProtocol.ASSIGNMENTS_PATH)
+                .retrieve()
+                .bodyToFlux(ProbeAssignment.class)
+                .map(ProbeAssignment::toApp)
+                .collectList()
+                .onErrorResume(e -> {
+                    // On garde les affectations précédentes jusqu'au prochain essai
+                    log.warn("⚠️ Cannot fetch assignments from {}: {}", centralUrl, e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<Void> push(WebClient central, List<StatusCheck> batch) {
+        byte[] frame = encode(batch);
+        return central.post()
+                .uri(AgentProtocol.RESULTS_PATH)
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .bodyValue(frame)
+                .retrieve()
+                .bodyToMono(new ParameterizedTypeReference<Map<String, Integer>>() {
+                })
+                .retryWhen(Retry.backoff(3, Duration.ofSeconds(1)))
+                .doOnNext(report -> log.debug("📤 {} results pushed ({} bytes), central accepted {}",
+                        batch.size(), frame.length, report.get("accepted")))
+                .onErrorResume(e -> {
+                    log.warn("❌ {} results lost, central unreachable: {}", batch.size(), e.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    /**
+     * Un check JSON par ligne, compressé en gzip
+     */
+    private byte[] encode(List<StatusCheck> batch) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            for (StatusCheck check : batch) {
+                gzip.write(objectMapper.writeValueAsBytes(check));
+                gzip.write('\n');
+            }
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static String defaultAgentId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (IOException e) {
+            host = "agent";
+        }
+        return host + "-" + ManagementFactory.getRuntimeMXBean().getPid();
+    }
+}
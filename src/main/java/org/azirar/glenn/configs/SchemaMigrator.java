@@ -0,0 +1,141 @@
+package org.azirar.glenn.configs;
+
+import liquibase.integration.spring.SpringLiquibase;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ResourceLoaderAware;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+
+/**
+ * Migration du schéma au démarrage, à la place de l'auto-configuration Liquibase :
+ * pas de pool JDBC, une connexion ouverte le temps de la migration puis fermée.
+ * Si l'empreinte des changelogs enregistrée en base est à jour, Liquibase n'est même pas chargé.
+ */
+@Slf4j
+@Component
+public class SchemaMigrator implements InitializingBean, ResourceLoaderAware {
+
+    private static final String CHANGELOG_PATTERN = "classpath*:db/changelog/*.yaml";
+
+    @Value("${spring.datasource.jdbc-url}")
+    private String jdbcUrl;
+    @Value("${spring.datasource.username}")
+    private String username;
+    @Value("${spring.datasource.password}")
+    private String password;
+    @Value("${spring.datasource.driver-class-name:org.postgresql.Driver}")
+    private String driverClassName;
+
+    @Value("${spring.liquibase.enabled:true}")
+    private boolean enabled;
+    @Value("${spring.liquibase.change-log:classpath:db/changelog/db.changelog-master.yaml}")
+    private String changeLog;
+    @Value("${spring.liquibase.default-schema:glenn}")
+    private String defaultSchema;
+    @Value("${spring.liquibase.contexts:}")
+    private String contexts;
+    @Value("${spring.liquibase.drop-first:false}")
+    private boolean dropFirst;
+    @Value("${migration.skip-if-up-to-date:true}")
+    private boolean skipIfUpToDate;
+
+    private ResourceLoader resourceLoader;
+
+    @Override
+    public void setResourceLoader(ResourceLoader resourceLoader) {
+        this.resourceLoader = resourceLoader;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        if (!enabled) {
+            log.info("⏭️ Schema migration disabled");
+            return;
+        }
+        long start = System.currentTimeMillis();
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(jdbcUrl, username, password);
+        dataSource.setDriverClassName(driverClassName);
+
+        String fingerprint = changelogFingerprint();
+        if (skipIfUpToDate && !dropFirst && fingerprint.equals(readFingerprint(dataSource))) {
+            log.info("✅ Schema up to date, Liquibase skipped ({} ms)", System.currentTimeMillis() - start);
+            return;
+        }
+
+        SpringLiquibase liquibase = new SpringLiquibase();
+        liquibase.setDataSource(dataSource);
+        liquibase.setChangeLog(changeLog);
+        liquibase.setDefaultSchema(defaultSchema);
+        liquibase.setContexts(contexts);
+        liquibase.setDropFirst(dropFirst);
+        liquibase.setResourceLoader(resourceLoader);
+        liquibase.afterPropertiesSet();
+
+        writeFingerprint(dataSource, fingerprint);
+        log.info("🗄️ Schema migrated ({} ms)", System.currentTimeMillis() - start);
+    }
+
+    /**
+     * SHA-256 du contenu des changelogs (triés par nom) et des contextes actifs
+     */
+    private String changelogFingerprint() throws IOException {
+        Resource[] resources = new PathMatchingResourcePatternResolver(resourceLoader).getResources(CHANGELOG_PATTERN);
+        Arrays.sort(resources, Comparator.comparing(Resource::getFilename));
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(contexts.getBytes(StandardCharsets.UTF_8));
+            for (Resource resource : resources) {
+                digest.update(resource.getFilename().getBytes(StandardCharsets.UTF_8));
+                try (InputStream in = resource.getInputStream()) {
+                    digest.update(in.readAllBytes());
+                }
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String readFingerprint(DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "SELECT fingerprint FROM " + defaultSchema + ".schema_fingerprint WHERE id = 1");
+             ResultSet result = statement.executeQuery()) {
+            return result.next() ? result.getString(1) : null;
+        } catch (SQLException e) {
+            // Table absente (première migration) : Liquibase tranchera
+            log.debug("No schema fingerprint: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeFingerprint(DataSource dataSource, String fingerprint) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "INSERT INTO " + defaultSchema + ".schema_fingerprint (id, fingerprint, applied_at) " +
+                             "VALUES (1, ?, now()) ON CONFLICT (id) " +
+                             "DO UPDATE SET fingerprint = EXCLUDED.fingerprint, applied_at = EXCLUDED.applied_at")) {
+            statement.setString(1, fingerprint);
+            statement.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package org.azirar.glenn.configs;
+
+import lombok.extern.slf4j.Slf4j;
+import org.azirar.glenn.repositories.EmbeddedStatusStore;
+import org.azirar.glenn.repositories.SqlStatusStore;
+import org.azirar.glenn.repositories.StatusCheckRepository;
+import org.azirar.glenn.repositories.StatusStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Slf4j
+@Configuration
+public class StatusStoreConfig {
+
+    /**
+     * Choisi à l'exécution plutôt que par une condition : l'image AOT sert les deux stockages
+     */
+    @Bean
+    public StatusStore statusStore(StatusCheckRepository statusCheckRepository,
+                                   DatabaseClient databaseClient,
+                                   TransactionalOperator transactionalOperator,
+                                   @Value("${storage.type:sql}") String type,
+                                   @Value("${storage.embedded.path:data/checks}") String path,
+                                   @Value("${storage.embedded.segment-window:3600000}") long segmentWindow,
+                                   @Value("${storage.embedded.segment-size:67108864}") int segmentSize,
+                                   @Value("${storage.embedded.retention-days:30}") int retentionDays,
+                                   @Value("${monitoring.history:5000}") int maxHistoryPerApp,
+                                   @Value("${monitoring.archive.enabled:true}") boolean archiveEnabled) throws IOException {
+        if ("embedded".equalsIgnoreCase(type)) {
+            log.info("🗂️ Status checks stored in embedded segments under {}", Path.of(path).toAbsolutePath());
+            // Avec l'archive, le plafond à l'écriture laisse au nettoyage le temps d'archiver l'excédent
+            return new EmbeddedStatusStore(Path.of(path), segmentWindow, segmentSize,
+                    Duration.ofDays(retentionDays).toMillis(), archiveEnabled ? maxHistoryPerApp * 2 : maxHistoryPerApp);
+        }
+        return new SqlStatusStore(statusCheckRepository, databaseClient, transactionalOperator);
+    }
+}
@@ -0,0 +1,18 @@
+package org.azirar.glenn.configs;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.client.WebClient;
+
+@Configuration
+public class WebClientConfig {
+
+    @Bean
+    public WebClient.Builder webClientBuilder() {
+        return WebClient.builder()
+                .codecs(configurer -> configurer
+                        .defaultCodecs()
+                        // Les sondes lisent le corps en flux (assertions bornées), jamais agrégé
+                        .maxInMemorySize(256 * 1024));
+    }
+}
@@ -0,0 +1,95 @@
+package org.azirar.glenn.endpoints;
+
+import lombok.RequiredArgsConstructor;
+import org.azirar.glenn.agent.AgentProtocol;
+import org.azirar.glenn.handlers.AgentIngestService;
+import org.azirar.glenn.handlers.AgentRegistry;
+import org.azirar.glenn.handlers.MonitoringService;
+import org.azirar.glenn.models.AgentStatus;
+import org.azirar.glenn.models.MonitoredApp;
+import org.azirar.glenn.models.ProbeAssignment;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * API des agents de sonde distants : affectations, réception des résultats et état des agents.
+ * Désactivée tant que {@code agent.token} n'est pas défini.
+ */
+@RestController
+@RequestMapping("/api/agents")
+@RequiredArgsConstructor
+public class AgentApiController {
+
+    private final AgentRegistry agentRegistry;
+    private final AgentIngestService agentIngestService;
+    private final MonitoringService monitoringService;
+
+    @Value("${agent.token:}")
+    private String agentToken;
+
+    @GetMapping
+    public List<AgentStatus> agents(@RequestHeader(AgentProtocol.HEADER_TOKEN) String token) {
+        authorize(token);
+        return agentRegistry.getAgents();
+    }
+
+    /**
+     * Applications à sonder par l'agent, réduites à leur définition de sonde ; l'appel vaut heartbeat
+     */
+    @GetMapping("/assignments")
+    public Mono<List<ProbeAssignment>> assignments(@RequestHeader(AgentProtocol.HEADER_TOKEN) String token,
+                                                @RequestHeader(AgentProtocol.HEADER_AGENT_ID) String agentId,
+                                                @RequestHeader(AgentProtocol.HEADER_LOCATION) String location) {
+        authorize(token);
+        agentRegistry.heartbeat(agentId, location);
+        return monitoringService.getAllApps()
+                .filter(MonitoredApp::getActive)
+                .filter(app -> agentRegistry.isAssigned(app, agentId))
+                .collectList()
+                .doOnNext(apps -> agentRegistry.setAssignments(agentId,
+                        apps.stream().map(MonitoredApp::getId).collect(Collectors.toSet())))
+                .map(apps -> apps.stream().map(ProbeAssignment::of).toList());
+    }
+
+    /**
+     * Lot de résultats : NDJSON de StatusCheck, {@code Content-Encoding: gzip} recommandé
+     */
+    @PostMapping(value = "/results", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public Mono<Map<String, Integer>> results(@RequestHeader(AgentProtocol.HEADER_TOKEN) String token,
+                                              @RequestHeader(AgentProtocol.HEADER_AGENT_ID) String agentId,
+                                              @RequestHeader(AgentProtocol.HEADER_LOCATION) String location,
+                                              ServerHttpRequest request) {
+        authorize(token);
+        agentRegistry.heartbeat(agentId, location);
+        boolean gzip = "gzip".equalsIgnoreCase(request.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        return agentIngestService.ingest(agentId, gzip, request.getBody())
+                .map(accepted -> Map.of("accepted", accepted));
+    }
+
+    private void authorize(String token) {
+        if (agentToken == null || agentToken.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Agent API disabled");
+        }
+        if (!MessageDigest.isEqual(agentToken.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8))) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid agent token");
+        }
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", e.getMessage()));
+    }
+}
@@ -0,0 +1,82 @@
+package org.azirar.glenn.endpoints;
+
+import lombok.RequiredArgsConstructor;
+import org.azirar.glenn.handlers.AppSearchService;
+import org.azirar.glenn.handlers.AppTransferService;
+import org.azirar.glenn.models.AppPage;
+import org.azirar.glenn.models.AppSearchCriteria;
+import org.azirar.glenn.models.ImportReport;
+import org.azirar.glenn.models.MonitoredApp;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * API JSON des applications surveillées
+ */
+@RestController
+@RequestMapping("/api/apps")
+@RequiredArgsConstructor
+public class AppApiController {
+
+    private final AppSearchService appSearchService;
+    private final AppTransferService appTransferService;
+
+    /**
+     * Page d'applications filtrée : GET /api/apps?q=api&category=Backend&status=down&limit=100&after=...
+     */
+    @GetMapping
+    public Mono<AppPage> search(@RequestParam(required = false) String q,
+                                @RequestParam(required = false) String category,
+                                @RequestParam(required = false) String status,
+                                @RequestParam(required = false) String after,
+                                @RequestParam(defaultValue = "" + AppSearchService.DEFAULT_PAGE_SIZE) int limit) {
+        return appSearchService.search(new AppSearchCriteria(q, category, status, after, limit));
+    }
+
+    @GetMapping("/categories")
+    public Mono<List<String>> categories() {
+        return appSearchService.getCategories();
+    }
+
+    /**
+     * Import CSV en masse (en-tête : name,category,description,url,accepted_statuses,active,webhook_url,...)
+     */
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public Mono<ImportReport> importCsv(@RequestBody Flux<String> lines) {
+        return appTransferService.importCsv(lines);
+    }
+
+    /**
+     * Import JSON en masse (tableau ou NDJSON)
+     */
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Mono<ImportReport> importJson(@RequestBody Flux<MonitoredApp> apps) {
+        return appTransferService.importApps(apps);
+    }
+
+    /**
+     * Export de toute la flotte en flux : GET /api/apps/export?format=csv|json
+     */
+    @GetMapping("/export")
+    public ResponseEntity<Flux<DataBuffer>> export(@RequestParam(defaultValue = "csv") String format) {
+        boolean json = "json".equalsIgnoreCase(format);
+        return ResponseEntity.ok()
+                .contentType(json ? MediaType.APPLICATION_JSON : MediaType.parseMediaType("text/csv"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=glenn-apps." + (json ? "json" : "csv"))
+                .body(json ? appTransferService.exportJson() : appTransferService.exportCsv());
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", e.getMessage()));
+    }
+}
@@ -2,12 +2,25 @@ package org.azirar.glenn.endpoints;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.azirar.glenn.handlers.AppSearchService;
+import org.azirar.glenn.handlers.DashboardSnapshotService;
+import org.azirar.glenn.handlers.DashboardSnapshotService.DashboardSnapshot;
 import org.azirar.glenn.handlers.MonitoringService;
+import org.azirar.glenn.models.AppPage;
+import org.azirar.glenn.models.AppSearchCriteria;
 import org.azirar.glenn.models.MonitoredApp;
 import org.azirar.glenn.models.StatusCheck;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
+import org.springframework.util.MultiValueMap;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.thymeleaf.spring6.context.webflux.ReactiveDataDriverContextVariable;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
@@ -21,61 +34,138 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class AppController {
 
+    private static final int DASHBOARD_CHUNK_SIZE = 50;
+
     private final MonitoringService monitoringService;
+    private final DashboardSnapshotService dashboardSnapshotService;
+    private final AppSearchService appSearchService;
+
+    @Value("${dashboard.page-size:" + AppSearchService.DEFAULT_PAGE_SIZE + "}")
+    private int pageSize;
+
+    @Value("${dashboard.page-mode-threshold:1000}")
+    private int pageModeThreshold;
 
     @GetMapping("/")
-    public Mono<String> index(Model model) {
-        return Mono.zip(
-                monitoringService.getAllApps().collectList(),
-                monitoringService.getLatestStatuses().collectList(), // CHANGEMENT: collectList au lieu de collectMap
-                monitoringService.getDistinctCategories().collectList()
-        ).map(tuple -> {
-            List<MonitoredApp> apps = tuple.getT1();
-            List<StatusCheck> latestStatusesList = tuple.getT2();
-            List<String> categories = tuple.getT3();
-
-            // CORRECTION: Créer une Map manuellement en gérant les doublons
-            Map<Long, StatusCheck> latestStatuses = new HashMap<>();
-            for (StatusCheck status : latestStatusesList) {
-                // Si la clé n'existe pas déjà, on l'ajoute
-                // Cela garde la première occurrence (la plus récente normalement)
-                latestStatuses.putIfAbsent(status.getAppId(), status);
+    public Mono<String> index(Model model, ServerWebExchange exchange) {
+        AppSearchCriteria criteria = criteriaFrom(exchange);
+        return pageModeRequired(criteria).flatMap(pageMode -> {
+            if (pageMode) {
+                return renderPage(model, exchange, criteria, "index");
             }
+            return dashboardSnapshotService.getSnapshot()
+                    .flatMap(snapshot -> {
+                        // 304 si rien n'a changé depuis le dernier rendu de cet écran
+                        if (isNotModified(exchange, snapshot)) {
+                            return Mono.empty();
+                        }
+                        populateDashboardModel(model, snapshot);
+                        model.addAttribute("categories", snapshot.categories());
 
-            model.addAttribute("apps", apps);
-            model.addAttribute("latestStatuses", latestStatuses);
-            model.addAttribute("categories", categories);
-            model.addAttribute("currentTime", LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
-
-            log.info("Index page loaded - Total apps: {}, Latest statuses: {}", apps.size(), latestStatuses.size());
-            return "index";
+                        log.debug("Index page loaded - Total apps: {}, Latest statuses: {}",
+                                snapshot.apps().size(), snapshot.latestStatuses().size());
+                        return Mono.just("index");
+                    });
         });
     }
 
     @GetMapping("/supervision")
-    public Mono<String> supervisionView(Model model) {
-        return Mono.zip(
-                monitoringService.getAllApps().collectList(),
-                monitoringService.getLatestStatuses().collectList() // CHANGEMENT: collectList
-        ).map(tuple -> {
-            List<MonitoredApp> apps = tuple.getT1();
-            List<StatusCheck> latestStatusesList = tuple.getT2();
-
-            // CORRECTION: Créer une Map manuellement
-            Map<Long, StatusCheck> latestStatuses = new HashMap<>();
-            for (StatusCheck status : latestStatusesList) {
-                latestStatuses.putIfAbsent(status.getAppId(), status);
+    public Mono<String> supervisionView(Model model, ServerWebExchange exchange) {
+        AppSearchCriteria criteria = criteriaFrom(exchange);
+        return pageModeRequired(criteria).flatMap(pageMode -> {
+            if (pageMode) {
+                return renderPage(model, exchange, criteria, "supervision");
             }
+            return dashboardSnapshotService.getSnapshot()
+                    .flatMap(snapshot -> {
+                        if (isNotModified(exchange, snapshot)) {
+                            return Mono.empty();
+                        }
+                        populateDashboardModel(model, snapshot);
 
-            model.addAttribute("apps", apps);
-            model.addAttribute("latestStatuses", latestStatuses);
-            model.addAttribute("currentTime", LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
-
-            log.info("Supervision view accessed - Total apps: {}", apps.size());
-            return "supervision";
+                        log.debug("Supervision view accessed - Total apps: {}", snapshot.apps().size());
+                        return Mono.just("supervision");
+                    });
         });
     }
 
+    /**
+     * Filtres demandés, ou flotte au-delà du seuil : on ne rend qu'une page,
+     * sans construire le snapshot complet
+     */
+    private Mono<Boolean> pageModeRequired(AppSearchCriteria criteria) {
+        if (!criteria.isEmpty()) {
+            return Mono.just(true);
+        }
+        return monitoringService.countApps().map(count -> count > pageModeThreshold);
+    }
+
+    /**
+     * Mode page : filtres et pagination évalués en base, seule la page demandée est rendue
+     */
+    private Mono<String> renderPage(Model model, ServerWebExchange exchange, AppSearchCriteria criteria, String view) {
+        int limit = criteria.limit() > 0 ? criteria.limit() : pageSize;
+        AppSearchCriteria pageCriteria = new AppSearchCriteria(
+                criteria.query(), criteria.category(), criteria.status(), criteria.after(), limit);
+
+        return Mono.zip(appSearchService.search(pageCriteria), appSearchService.getCategories())
+                .map(tuple -> {
+                    AppPage page = tuple.getT1();
+                    Map<Long, StatusCheck> latestStatuses = new HashMap<>();
+                    for (MonitoredApp app : page.items()) {
+                        if (app.getLastStatus() != null) {
+                            latestStatuses.put(app.getId(), app.getLastStatus());
+                        }
+                    }
+
+                    model.addAttribute("apps", new ReactiveDataDriverContextVariable(
+                            Flux.fromIterable(page.items()), DASHBOARD_CHUNK_SIZE));
+                    model.addAttribute("appCount", page.items().size());
+                    model.addAttribute("latestStatuses", latestStatuses);
+                    model.addAttribute("categories", tuple.getT2());
+                    model.addAttribute("currentTime", LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
+                    model.addAttribute("pageMode", true);
+                    model.addAttribute("search", pageCriteria);
+                    model.addAttribute("nextPageUrl", page.nextCursor() == null ? null
+                            : UriComponentsBuilder.fromPath(exchange.getRequest().getURI().getRawPath())
+                            .query(exchange.getRequest().getURI().getRawQuery())
+                            .replaceQueryParam("after", page.nextCursor())
+                            .build().toUriString());
+                    return view;
+                });
+    }
+
+    // Curseur de pagination invalide
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+    }
+
+    private AppSearchCriteria criteriaFrom(ServerWebExchange exchange) {
+        MultiValueMap<String, String> params = exchange.getRequest().getQueryParams();
+        String limit = params.getFirst("limit");
+        return new AppSearchCriteria(
+                params.getFirst("q"),
+                params.getFirst("category"),
+                params.getFirst("status"),
+                params.getFirst("after"),
+                limit != null && limit.matches("\\d{1,4}") ? Integer.parseInt(limit) : 0);
+    }
+
+    private boolean isNotModified(ServerWebExchange exchange, DashboardSnapshot snapshot) {
+        exchange.getResponse().getHeaders().setCacheControl(CacheControl.noCache());
+        return exchange.checkNotModified(snapshot.etag());
+    }
+
+    private void populateDashboardModel(Model model, DashboardSnapshot snapshot) {
+        // Rendu par morceaux : les grandes flottes sont envoyées progressivement au navigateur
+        model.addAttribute("apps", new ReactiveDataDriverContextVariable(
+                Flux.fromIterable(snapshot.apps()), DASHBOARD_CHUNK_SIZE));
+        model.addAttribute("appCount", snapshot.apps().size());
+        model.addAttribute("latestStatuses", snapshot.latestStatuses());
+        model.addAttribute("currentTime", snapshot.builtAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
+    }
+
     @GetMapping("/app/{id}")
     public Mono<String> appDetails(@PathVariable Long id, Model model) {
         return monitoringService.getAppById(id)
@@ -132,19 +222,8 @@ public class AppController {
 
         double avgResponse = history.stream()
                 .mapToInt(check -> {
-                    String responseStr = check.getResponseTime();
-                    if (responseStr != null) {
-                        try {
-                            String numeric = responseStr.replaceAll("[^0-9]", "");
-                            if (!numeric.isEmpty()) {
-                                int val = Integer.parseInt(numeric);
-                                return val < 5000 ? val : 0;
-                            }
-                        } catch (NumberFormatException e) {
-                            // Ignorer
-                        }
-                    }
-                    return 0;
+                    Integer ms = check.getResponseTimeMs();
+                    return ms != null && ms < 5000 ? ms : 0;
                 })
                 .filter(val -> val > 0)
                 .average()
@@ -163,13 +242,17 @@ public class AppController {
 
     @GetMapping("/app/add")
     public Mono<String> addAppForm(Model model) {
-        return monitoringService.getDistinctCategories().collectList()
-                .map(categories -> {
+        return Mono.zip(
+                monitoringService.getDistinctCategories().collectList(),
+                parentCandidates(null)
+        ).map(tuple -> {
+                    List<String> categories = tuple.getT1();
                     MonitoredApp newApp = new MonitoredApp();
                     newApp.setAcceptedStatuses("200,201,202,203,204,205,206");
 
                     model.addAttribute("monitoredApp", newApp);
                     model.addAttribute("categories", categories);
+                    model.addAttribute("parentCandidates", tuple.getT2());
                     List<Integer> statusOptions = List.of(
                             200,201,202,203,204,205,206,
                             300,301,302,303,304,305,307,308,
@@ -189,13 +272,15 @@ public class AppController {
     public Mono<String> editAppForm(@PathVariable Long id, Model model) {
         return Mono.zip(
                 monitoringService.getAppById(id),
-                monitoringService.getDistinctCategories().collectList()
+                monitoringService.getDistinctCategories().collectList(),
+                parentCandidates(id)
         ).map(tuple -> {
             MonitoredApp app = tuple.getT1();
             List<String> categories = tuple.getT2();
 
             model.addAttribute("monitoredApp", app);
             model.addAttribute("categories", categories);
+            model.addAttribute("parentCandidates", tuple.getT3());
             List<Integer> statusOptions = List.of(
                     200,201,202,203,204,205,206,
                     300,301,302,303,304,307,308,
@@ -209,6 +294,16 @@ public class AppController {
         });
     }
 
+    /**
+     * Applications proposées comme dépendance amont (toutes sauf l'application éditée)
+     */
+    private Mono<List<MonitoredApp>> parentCandidates(Long excludedId) {
+        return monitoringService.getAllApps()
+                .filter(app -> !app.getId().equals(excludedId))
+                .sort(Comparator.comparing(MonitoredApp::getName, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER)))
+                .collectList();
+    }
+
     @PostMapping("/app/save")
     public Mono<String> saveApp(@ModelAttribute MonitoredApp app) {
         return monitoringService.saveApp(app)
@@ -0,0 +1,50 @@
+package org.azirar.glenn.endpoints;
+
+import lombok.RequiredArgsConstructor;
+import org.azirar.glenn.handlers.FleetAggregateService;
+import org.azirar.glenn.models.FleetAggregates;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+
+/**
+ * Compteurs par catégorie pour les murs d'écrans : GET /api/fleet (ETag, 304 tant que rien
+ * n'a changé) et GET /api/fleet/stream, qui pousse les agrégats à chaque changement
+ * visible, au plus une fois par {@code fleet.stream-interval}.
+ */
+@RestController
+@RequestMapping("/api/fleet")
+@RequiredArgsConstructor
+public class FleetApiController {
+
+    private final FleetAggregateService fleetAggregateService;
+
+    @Value("${fleet.stream-interval:1000}")
+    private long streamInterval;
+
+    @GetMapping
+    public ResponseEntity<FleetAggregates> fleet() {
+        FleetAggregates aggregates = fleetAggregateService.getAggregates();
+        return ResponseEntity.ok()
+                .eTag("\"" + Long.toHexString(aggregates.version()) + "\"")
+                .cacheControl(CacheControl.noCache())
+                .body(aggregates);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<FleetAggregates> stream() {
+        // Tous les abonnés partagent le même objet par version ; rien n'est émis sans changement
+        return Flux.interval(Duration.ZERO, Duration.ofMillis(streamInterval))
+                .onBackpressureDrop()
+                .map(tick -> fleetAggregateService.getVersion())
+                .distinctUntilChanged()
+                .map(version -> fleetAggregateService.getAggregates());
+    }
+}
@@ -0,0 +1,52 @@
+package org.azirar.glenn.endpoints;
+
+import lombok.RequiredArgsConstructor;
+import org.azirar.glenn.handlers.HistoryArchiveService;
+import org.azirar.glenn.models.HistoryUptime;
+import org.azirar.glenn.models.StatusCheck;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+/**
+ * Historique longue période (archive compressée + checks récents).
+ * Sans bornes explicites, la période couvre les 30 derniers jours.
+ */
+@RestController
+@RequestMapping("/api/history")
+@RequiredArgsConstructor
+public class HistoryApiController {
+
+    private static final int DEFAULT_RANGE_DAYS = 30;
+
+    private final HistoryArchiveService historyArchiveService;
+
+    /**
+     * Checks dans l'ordre chronologique : GET /api/history?appId=1&from=2026-03-01T00:00:00
+     * (Accept: application/x-ndjson pour les recevoir au fil du décodage)
+     */
+    @GetMapping
+    public Flux<StatusCheck> history(@RequestParam Long appId,
+                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        return historyArchiveService.getHistory(appId, from != null ? from : end.minusDays(DEFAULT_RANGE_DAYS), end);
+    }
+
+    /**
+     * Part des checks UP et temps de réponse moyen sur la période, pour les rapports SLA mensuels
+     */
+    @GetMapping("/uptime")
+    public Mono<HistoryUptime> uptime(@RequestParam Long appId,
+                                      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        return historyArchiveService.getUptime(appId, from != null ? from : end.minusDays(DEFAULT_RANGE_DAYS), end);
+    }
+}
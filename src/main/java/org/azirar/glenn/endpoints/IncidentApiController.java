@@ -0,0 +1,63 @@
+package org.azirar.glenn.endpoints;
+
+import lombok.RequiredArgsConstructor;
+import org.azirar.glenn.handlers.IncidentService;
+import org.azirar.glenn.models.Incident;
+import org.azirar.glenn.models.ReliabilityReport;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * API des incidents : historique des pannes, MTTR / MTBF et disponibilité sur une période.
+ * Sans bornes explicites, la période couvre les 7 derniers jours.
+ */
+@RestController
+@RequestMapping("/api/incidents")
+@RequiredArgsConstructor
+public class IncidentApiController {
+
+    private static final int DEFAULT_RANGE_DAYS = 7;
+
+    private final IncidentService incidentService;
+
+    /**
+     * Chronologie des pannes : GET /api/incidents?appId=1&from=2026-03-01T00:00:00&to=2026-03-08T00:00:00
+     */
+    @GetMapping
+    public Flux<Incident> timeline(@RequestParam Long appId,
+                                   @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                   @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        return incidentService.getTimeline(appId, from != null ? from : end.minusDays(DEFAULT_RANGE_DAYS), end);
+    }
+
+    /**
+     * Applications actuellement DOWN, avec leur date de début de panne
+     */
+    @GetMapping("/open")
+    public Flux<Incident> open() {
+        return incidentService.getOpenIncidents();
+    }
+
+    @GetMapping("/reliability")
+    public Mono<ReliabilityReport> reliability(@RequestParam Long appId,
+                                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        return incidentService.getReliability(appId, from != null ? from : end.minusDays(DEFAULT_RANGE_DAYS), end);
+    }
+
+    /**
+     * Reconstruit la table depuis l'historique des checks (toutes les apps, ou une seule)
+     */
+    @PostMapping("/rebuild")
+    public Mono<Map<String, Long>> rebuild(@RequestParam(required = false) Long appId) {
+        Mono<Long> rebuilt = appId != null ? incidentService.rebuild(appId) : incidentService.rebuildAll();
+        return rebuilt.map(count -> Map.of("incidents", count));
+    }
+}
@@ -0,0 +1,77 @@
+package org.azirar.glenn.endpoints;
+
+import lombok.RequiredArgsConstructor;
+import org.azirar.glenn.handlers.SloService;
+import org.azirar.glenn.models.SloDefinition;
+import org.azirar.glenn.models.SloStatus;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * API des objectifs de service : définitions, budget d'erreur restant et taux de consommation
+ */
+@RestController
+@RequestMapping("/api/slos")
+@RequiredArgsConstructor
+public class SloApiController {
+
+    private final SloService sloService;
+
+    /**
+     * État de tous les SLO actifs, ou de ceux d'une application : GET /api/slos?appId=1
+     */
+    @GetMapping
+    public Flux<SloStatus> statuses(@RequestParam(required = false) Long appId) {
+        return sloService.getStatuses(appId);
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<SloStatus>> status(@PathVariable Long id) {
+        return sloService.getStatus(id)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/{id}/definition")
+    public Mono<ResponseEntity<SloDefinition>> definition(@PathVariable Long id) {
+        return sloService.getDefinition(id)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Crée un SLO : {"appId": 1, "name": "Availability", "objective": 99.9, "windowDays": 30, "latencyThresholdMs": 500}
+     */
+    @PostMapping
+    public Mono<SloDefinition> create(@RequestBody SloDefinition slo) {
+        slo.setId(null);
+        return sloService.save(slo);
+    }
+
+    @PutMapping("/{id}")
+    public Mono<ResponseEntity<SloDefinition>> update(@PathVariable Long id, @RequestBody SloDefinition slo) {
+        return sloService.getDefinition(id)
+                .flatMap(existing -> {
+                    slo.setId(id);
+                    slo.setCreatedAt(existing.getCreatedAt());
+                    return sloService.save(slo);
+                })
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<Void>> delete(@PathVariable Long id) {
+        return sloService.delete(id).thenReturn(ResponseEntity.noContent().build());
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", e.getMessage()));
+    }
+}
@@ -0,0 +1,45 @@
+package org.azirar.glenn.endpoints;
+
+import lombok.RequiredArgsConstructor;
+import org.azirar.glenn.handlers.StatusSummaryService;
+import org.azirar.glenn.models.StorageStats;
+import org.azirar.glenn.repositories.StatusStore;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+/**
+ * Résumé d'état pour les outils externes (page de statut, load balancers) :
+ * GET /api/status[?category=Backend]. Le corps est pré-sérialisé ;
+ * un client qui renvoie l'ETag reçoit 304 tant que rien n'a changé.
+ */
+@RestController
+@RequiredArgsConstructor
+public class StatusApiController {
+
+    private final StatusSummaryService statusSummaryService;
+    private final StatusStore statusStore;
+
+    @GetMapping(value = "/api/status", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<byte[]>> status(@RequestParam(required = false) String category) {
+        // If-None-Match est comparé à l'ETag par le ResponseEntityResultHandler (304 sans corps)
+        return statusSummaryService.getSummary(category)
+                .map(summary -> ResponseEntity.ok()
+                        .eTag(summary.etag())
+                        .cacheControl(CacheControl.noCache())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(summary.body()));
+    }
+
+    /**
+     * Occupation de l'historique des checks : lignes, octets, octets par ligne
+     */
+    @GetMapping("/api/storage")
+    public Mono<StorageStats> storage() {
+        return statusStore.storageStats();
+    }
+}
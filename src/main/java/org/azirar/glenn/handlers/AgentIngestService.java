@@ -0,0 +1,85 @@
+package org.azirar.glenn.handlers;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.azirar.glenn.models.StatusCheck;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Réception des lots de résultats envoyés par les agents :
+ * trame NDJSON (éventuellement gzip) décodée puis injectée dans le flux de monitoring.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AgentIngestService {
+
+    private final ObjectMapper objectMapper;
+    private final AgentRegistry agentRegistry;
+    private final MonitoringService monitoringService;
+
+    @Value("${agent.ingest.max-frame-bytes:4194304}")
+    private int maxFrameBytes;
+
+    /**
+     * Retourne le nombre de checks acceptés
+     */
+    public Mono<Integer> ingest(String agentId, boolean gzip, Flux<DataBuffer> body) {
+        return DataBufferUtils.join(body, maxFrameBytes)
+                .onErrorMap(DataBufferLimitException.class,
+                        e -> new IllegalArgumentException("Result frame exceeds " + maxFrameBytes + " bytes"))
+                .map(buffer -> {
+                    try (InputStream in = buffer.asInputStream(true)) {
+                        return decode(gzip ? new GZIPInputStream(in) : in);
+                    } catch (IOException e) {
+                        throw new IllegalArgumentException("Invalid result frame: " + e.getMessage());
+                    }
+                })
+                .map(checks -> {
+                    List<StatusCheck> assigned = checks.stream()
+                            .filter(check -> agentRegistry.isAssignedId(agentId, check.getAppId()))
+                            .map(this::normalize)
+                            .toList();
+                    int accepted = monitoringService.ingestRemoteResults(assigned);
+                    agentRegistry.recordResults(agentId, accepted);
+                    if (accepted < checks.size()) {
+                        log.debug("Agent {}: {} of {} results accepted", agentId, accepted, checks.size());
+                    }
+                    return accepted;
+                });
+    }
+
+    private List<StatusCheck> decode(InputStream in) throws IOException {
+        // Borne aussi la taille décompressée
+        byte[] raw = in.readNBytes(maxFrameBytes + 1);
+        if (raw.length > maxFrameBytes) {
+            throw new IllegalArgumentException("Result frame exceeds " + maxFrameBytes + " bytes");
+        }
+        try (MappingIterator<StatusCheck> checks = objectMapper.readerFor(StatusCheck.class).readValues(raw)) {
+            return checks.readAll();
+        }
+    }
+
+    private StatusCheck normalize(StatusCheck check) {
+        return check.toBuilder()
+                .id(null)
+                .isUp(Boolean.TRUE.equals(check.getIsUp()))
+                .checkedAt(check.getCheckedAt() != null ? check.getCheckedAt() : LocalDateTime.now())
+                .build();
+    }
+}
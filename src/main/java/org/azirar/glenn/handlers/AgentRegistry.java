@@ -0,0 +1,119 @@
+package org.azirar.glenn.handlers;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.azirar.glenn.models.AgentStatus;
+import org.azirar.glenn.models.MonitoredApp;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Agents de sonde distants connus du nœud central (en mémoire).
+ * Un agent est vivant tant qu'il rafraîchit ses affectations ; les applications d'un emplacement
+ * sont réparties entre les agents vivants de cet emplacement.
+ */
+@Component
+public class AgentRegistry {
+
+    @Value("${agent.liveness-timeout:90000}")
+    private long livenessTimeout;
+
+    private final Map<String, AgentState> agents = new ConcurrentHashMap<>();
+
+    public AgentRegistry(MeterRegistry meterRegistry) {
+        Gauge.builder("glenn.agents.alive", this, registry -> registry.getAgents().stream()
+                        .filter(AgentStatus::alive)
+                        .count())
+                .description("Agents de sonde distants vivants")
+                .register(meterRegistry);
+    }
+
+    public void heartbeat(String agentId, String location) {
+        AgentState state = agents.computeIfAbsent(agentId, id -> new AgentState());
+        state.location = location;
+        state.lastSeen = System.currentTimeMillis();
+    }
+
+    /**
+     * Indique si l'application revient à cet agent : même emplacement, et partition
+     * stable entre les agents vivants de l'emplacement (triés par identifiant).
+     */
+    public boolean isAssigned(MonitoredApp app, String agentId) {
+        AgentState state = agents.get(agentId);
+        if (state == null || !app.hasProbeLocation() || !app.getProbeLocation().equalsIgnoreCase(state.location)) {
+            return false;
+        }
+        List<String> peers = liveAgents(state.location);
+        int index = peers.indexOf(agentId);
+        return index >= 0 && Math.floorMod(app.getId().hashCode(), peers.size()) == index;
+    }
+
+    public void setAssignments(String agentId, Set<Long> appIds) {
+        AgentState state = agents.get(agentId);
+        if (state != null) {
+            state.assignedAppIds = Set.copyOf(appIds);
+        }
+    }
+
+    /**
+     * Seuls les résultats des applications affectées à l'agent sont acceptés
+     */
+    public boolean isAssignedId(String agentId, Long appId) {
+        AgentState state = agents.get(agentId);
+        return state != null && appId != null && state.assignedAppIds.contains(appId);
+    }
+
+    public void recordResults(String agentId, int count) {
+        AgentState state = agents.get(agentId);
+        if (state != null) {
+            state.lastResultsAt = System.currentTimeMillis();
+            state.resultsReceived.addAndGet(count);
+        }
+    }
+
+    public List<AgentStatus> getAgents() {
+        long now = System.currentTimeMillis();
+        return agents.entrySet().stream()
+                .map(entry -> {
+                    AgentState state = entry.getValue();
+                    return new AgentStatus(entry.getKey(), state.location,
+                            now - state.lastSeen <= livenessTimeout,
+                            toDateTime(state.lastSeen), toDateTime(state.lastResultsAt),
+                            state.assignedAppIds.size(), state.resultsReceived.get());
+                })
+                .sorted(Comparator.comparing(AgentStatus::agentId))
+                .toList();
+    }
+
+    private List<String> liveAgents(String location) {
+        long now = System.currentTimeMillis();
+        return agents.entrySet().stream()
+                .filter(entry -> entry.getValue().location.equalsIgnoreCase(location))
+                .filter(entry -> now - entry.getValue().lastSeen <= livenessTimeout)
+                .map(Map.Entry::getKey)
+                .sorted()
+                .toList();
+    }
+
+    private static LocalDateTime toDateTime(long millis) {
+        return millis == 0 ? null : LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+
+    private static final class AgentState {
+        private volatile String location;
+        private volatile long lastSeen;
+        private volatile long lastResultsAt;
+        private final AtomicLong resultsReceived = new AtomicLong();
+        private volatile Set<Long> assignedAppIds = Set.of();
+    }
+}
@@ -0,0 +1,297 @@
+package org.azirar.glenn.handlers;
+
+import io.r2dbc.postgresql.api.PostgresqlConnection;
+import io.r2dbc.postgresql.api.PostgresqlResult;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import io.r2dbc.spi.Wrapped;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.azirar.glenn.models.MonitoredApp;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.r2dbc.convert.R2dbcConverter;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Copie en mémoire de monitored_apps, tenue à jour par poussée plutôt que relue à chaque tick.
+ * <p>
+ * Un trigger publie chaque modification sur le canal {@value #CHANNEL} (autre instance, script,
+ * migration SQL) ; une connexion dédiée l'écoute et ne relit que les lignes concernées.
+ * Une réconciliation périodique compare une empreinte md5 de la table à celle de la copie
+ * et ne recharge que les lignes divergentes : filet de sécurité si une notification est perdue.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AppRegistry {
+
+    static final String CHANNEL = "monitored_apps_changed";
+
+    private static final String SELECT_WITH_HASH = "SELECT a.*, md5(a::text) AS row_hash FROM monitored_apps a";
+
+    private final DatabaseClient databaseClient;
+    private final R2dbcConverter converter;
+    private final ConnectionFactory connectionFactory;
+    private final ApplicationEventPublisher events;
+
+    private final Map<Long, Entry> apps = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    @Value("${monitoring.registry.listen:true}")
+    private boolean listen;
+
+    // Regroupe les notifications d'une modification en masse en une seule relecture
+    @Value("${monitoring.registry.notify-batch-window:200}")
+    private long notifyBatchWindow;
+
+    /**
+     * Applications modifiées ou supprimées, publiées après leur application au registre
+     */
+    public record AppsChanged(List<MonitoredApp> updated, Set<Long> removed) {
+    }
+
+    private record Entry(MonitoredApp app, String hash) {
+        boolean equalsHash(Entry previous) {
+            return previous != null && Objects.equals(previous.hash, hash);
+        }
+    }
+
+    // --- LECTURE ---
+
+    /**
+     * Toutes les applications, par identifiant croissant ; chargées depuis la base au premier appel
+     */
+    public Flux<MonitoredApp> findAll() {
+        return ensureLoaded().thenMany(Flux.defer(() -> Flux.fromStream(apps.values().stream()
+                .map(Entry::app)
+                .sorted(Comparator.comparing(MonitoredApp::getId)))));
+    }
+
+    public Mono<MonitoredApp> findById(Long id) {
+        return ensureLoaded().then(Mono.fromCallable(() -> {
+            Entry entry = apps.get(id);
+            return entry != null ? entry.app() : null;
+        }));
+    }
+
+    public Mono<Integer> count() {
+        return ensureLoaded().then(Mono.fromCallable(apps::size));
+    }
+
+    private Mono<Void> ensureLoaded() {
+        return Mono.defer(() -> loaded ? Mono.empty() : reloadAll());
+    }
+
+    // --- MISES À JOUR ---
+
+    /**
+     * Relit les applications données ; celles qui n'existent plus sont retirées
+     */
+    public Mono<Void> refresh(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Mono.empty();
+        }
+        Set<Long> requested = new HashSet<>(ids);
+        return databaseClient.sql(SELECT_WITH_HASH + " WHERE a.id IN (:ids)")
+                .bind("ids", requested)
+                .map(this::readEntry)
+                .all()
+                .collectMap(entry -> entry.app().getId())
+                .doOnNext(found -> {
+                    List<MonitoredApp> updated = new ArrayList<>();
+                    Set<Long> removed = new HashSet<>();
+                    for (Long id : requested) {
+                        Entry entry = found.get(id);
+                        if (entry == null) {
+                            if (apps.remove(id) != null) {
+                                removed.add(id);
+                            }
+                        } else if (!entry.equalsHash(apps.put(id, entry))) {
+                            updated.add(entry.app());
+                        }
+                    }
+                    publish(updated, removed);
+                })
+                .then();
+    }
+
+    public Mono<Void> refresh(Long id) {
+        return refresh(List.of(id));
+    }
+
+    public void remove(Long id) {
+        if (apps.remove(id) != null) {
+            publish(List.of(), Set.of(id));
+        }
+    }
+
+    private Mono<Void> reloadAll() {
+        return databaseClient.sql(SELECT_WITH_HASH)
+                .map(this::readEntry)
+                .all()
+                .collectMap(entry -> entry.app().getId())
+                .doOnNext(found -> {
+                    List<MonitoredApp> updated = new ArrayList<>();
+                    Set<Long> removed = new HashSet<>(apps.keySet());
+                    removed.removeAll(found.keySet());
+                    found.forEach((id, entry) -> {
+                        if (!entry.equalsHash(apps.put(id, entry))) {
+                            updated.add(entry.app());
+                        }
+                    });
+                    apps.keySet().removeAll(removed);
+                    if (!loaded) {
+                        loaded = true;
+                        log.info("📇 App registry loaded: {} apps", apps.size());
+                    }
+                    publish(updated, removed);
+                })
+                .then();
+    }
+
+    private void publish(List<MonitoredApp> updated, Set<Long> removed) {
+        if (!updated.isEmpty() || !removed.isEmpty()) {
+            events.publishEvent(new AppsChanged(updated, removed));
+        }
+    }
+
+    private Entry readEntry(Row row, RowMetadata metadata) {
+        return new Entry(converter.read(MonitoredApp.class, row, metadata), row.get("row_hash", String.class));
+    }
+
+    // --- LISTEN / NOTIFY ---
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startListening() {
+        if (!listen) {
+            log.info("📇 App registry: LISTEN disabled, changes from other sources are picked up by reconciliation");
+            return;
+        }
+        Flux.usingWhen(openListenConnection(), this::listen, connection -> connection.close())
+                // Connexion fermée par le serveur : on se reconnecte comme sur une erreur
+                .concatWith(Mono.error(new IllegalStateException("LISTEN connection closed")))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                        .maxBackoff(Duration.ofSeconds(30))
+                        .filter(e -> !(e instanceof UnsupportedOperationException))
+                        .doBeforeRetry(signal -> log.warn("⚠️ App registry LISTEN lost ({}), reconnecting",
+                                signal.failure().getMessage())))
+                .subscribe(
+                        done -> { },
+                        e -> log.warn("⚠️ App registry LISTEN unavailable ({}), relying on reconciliation", e.getMessage()));
+    }
+
+    /**
+     * Connexion hors pool : elle reste ouverte pour recevoir les notifications
+     */
+    private Mono<PostgresqlConnection> openListenConnection() {
+        ConnectionFactory factory = connectionFactory;
+        while (factory instanceof Wrapped<?> wrapped && wrapped.unwrap() instanceof ConnectionFactory inner && inner != factory) {
+            factory = inner;
+        }
+        return Mono.from(factory.create())
+                .flatMap(connection -> connection instanceof PostgresqlConnection postgres
+                        ? Mono.just(postgres)
+                        : Mono.from(connection.close()).then(Mono.error(
+                                new UnsupportedOperationException("not a PostgreSQL connection"))));
+    }
+
+    private Flux<Void> listen(PostgresqlConnection connection) {
+        Flux<Void> changes = connection.getNotifications()
+                .mapNotNull(notification -> notification.getParameter())
+                .bufferTimeout(256, Duration.ofMillis(notifyBatchWindow))
+                .concatMap(this::apply);
+        return connection.createStatement("LISTEN " + CHANNEL)
+                .execute()
+                .flatMap(PostgresqlResult::getRowsUpdated)
+                .then(Mono.fromRunnable(() -> log.info("📡 App registry listening on {}", CHANNEL)))
+                // Rattrape ce qui a changé pendant une déconnexion ; les notifications sont déjà écoutées
+                .thenMany(Flux.merge(reloadAll(), changes));
+    }
+
+    private Mono<Void> apply(List<String> payloads) {
+        Set<Long> ids = new HashSet<>();
+        for (String payload : payloads) {
+            int separator = payload.indexOf(':');
+            String operation = separator < 0 ? payload : payload.substring(0, separator);
+            if ("TRUNCATE".equals(operation)) {
+                return reloadAll();
+            }
+            try {
+                ids.add(Long.parseLong(payload.substring(separator + 1)));
+            } catch (NumberFormatException | IndexOutOfBoundsException e) {
+                log.warn("⚠️ Ignoring malformed {} payload: {}", CHANNEL, payload);
+            }
+        }
+        log.debug("📡 {} app changes notified", ids.size());
+        return refresh(ids).onErrorResume(e -> {
+            // La réconciliation rattrapera ces lignes
+            log.error("❌ App registry refresh failed: {}", e.getMessage());
+            return Mono.empty();
+        });
+    }
+
+    // --- RÉCONCILIATION ---
+
+    /**
+     * Compare l'empreinte de la table à celle du registre ; en cas d'écart, seules
+     * les lignes dont le hash diffère sont relues
+     */
+    @Scheduled(fixedDelayString = "${monitoring.registry.reconcile-interval:300000}",
+            initialDelayString = "${monitoring.registry.reconcile-interval:300000}")
+    public void reconcile() {
+        if (!loaded) {
+            return;
+        }
+        databaseClient.sql("SELECT md5(COALESCE(string_agg(md5(a::text), ',' ORDER BY a.id), '')) AS checksum FROM monitored_apps a")
+                .map(row -> row.get("checksum", String.class))
+                .one()
+                .filter(checksum -> !checksum.equals(localChecksum()))
+                .flatMap(checksum -> databaseClient.sql("SELECT a.id, md5(a::text) AS row_hash FROM monitored_apps a")
+                        .map(row -> Map.entry(row.get("id", Long.class), row.get("row_hash", String.class)))
+                        .all()
+                        .collectMap(Map.Entry::getKey, Map.Entry::getValue))
+                .flatMap(remote -> {
+                    Set<Long> drifted = new HashSet<>(apps.keySet());
+                    drifted.removeAll(remote.keySet());
+                    remote.forEach((id, hash) -> {
+                        Entry entry = apps.get(id);
+                        if (entry == null || !hash.equals(entry.hash())) {
+                            drifted.add(id);
+                        }
+                    });
+                    log.warn("🔄 App registry drift: {} apps out of sync, reloading them", drifted.size());
+                    return refresh(drifted);
+                })
+                .subscribe(
+                        done -> { },
+                        e -> log.error("❌ App registry reconciliation failed: {}", e.getMessage()));
+    }
+
+    // Même calcul que la requête : md5 des hash de ligne, par id croissant, séparés par des virgules
+    private String localChecksum() {
+        StringJoiner joined = new StringJoiner(",");
+        new TreeMap<>(apps).values().forEach(entry -> joined.add(entry.hash()));
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("MD5")
+                    .digest(joined.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
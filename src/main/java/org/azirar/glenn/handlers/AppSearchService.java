@@ -0,0 +1,185 @@
+package org.azirar.glenn.handlers;
+
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import lombok.RequiredArgsConstructor;
+import org.azirar.glenn.models.AppPage;
+import org.azirar.glenn.models.AppSearchCriteria;
+import org.azirar.glenn.models.MonitoredApp;
+import org.azirar.glenn.models.StatusCheck;
+import org.azirar.glenn.repositories.StatusStore;
+import org.springframework.data.r2dbc.convert.R2dbcConverter;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Recherche paginée des applications, filtrée côté serveur.
+ * Pagination par clé (name, id) : le coût d'une page ne dépend pas de sa position dans la flotte.
+ */
+@Service
+@RequiredArgsConstructor
+public class AppSearchService {
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
+    public static final String UNCATEGORIZED = "Uncategorized";
+
+    // Dernier statut de chaque application via l'index (app_id, checked_at DESC)
+    private static final String SELECT =
+            "SELECT a.*, ls.id AS ls_id, ls.status_code AS ls_status_code, ls.is_up AS ls_is_up, " +
+            "ls.response_time_ms AS ls_response_time_ms, ls.error_code AS ls_error_code, ls.error_detail AS ls_error_detail, " +
+            "ls.checked_at AS ls_checked_at " +
+            "FROM monitored_apps a " +
+            "LEFT JOIN LATERAL (SELECT s.id, s.status_code, s.is_up, s.response_time_ms, s.error_code, s.error_detail, s.checked_at " +
+            "FROM status_checks s WHERE s.app_id = a.id ORDER BY s.checked_at DESC LIMIT 1) ls ON TRUE " +
+            "WHERE 1 = 1";
+
+    // Checks hors de la base (stockage embarqué) : l'état vient des incidents ouverts,
+    // le dernier statut est lu dans le stockage après la requête
+    private static final String SELECT_WITHOUT_CHECKS = "SELECT a.* FROM monitored_apps a WHERE 1 = 1";
+
+    private final DatabaseClient databaseClient;
+    private final R2dbcConverter converter;
+    private final StatusStore statusStore;
+
+    public Mono<AppPage> search(AppSearchCriteria criteria) {
+        int limit = criteria.limit() <= 0 ? DEFAULT_PAGE_SIZE : Math.min(criteria.limit(), MAX_PAGE_SIZE);
+        boolean joinChecks = statusStore.sharesDatabase();
+        StringBuilder sql = new StringBuilder(joinChecks ? SELECT : SELECT_WITHOUT_CHECKS);
+        Map<String, Object> binds = new LinkedHashMap<>();
+
+        if (criteria.query() != null && !criteria.query().isBlank()) {
+            String prefix = escapeLike(criteria.query().trim().toLowerCase(Locale.ROOT)) + "%";
+            sql.append(" AND (lower(a.name) LIKE :prefix OR lower(a.url) LIKE :prefix" +
+                    " OR lower(a.url) LIKE :httpPrefix OR lower(a.url) LIKE :httpsPrefix)");
+            binds.put("prefix", prefix);
+            binds.put("httpPrefix", "http://" + prefix);
+            binds.put("httpsPrefix", "https://" + prefix);
+        }
+
+        if (criteria.category() != null && !criteria.category().isBlank()) {
+            if (UNCATEGORIZED.equals(criteria.category())) {
+                sql.append(" AND (a.category IS NULL OR a.category = '')");
+            } else {
+                sql.append(" AND a.category = :category");
+                binds.put("category", criteria.category());
+            }
+        }
+
+        if (criteria.status() != null) {
+            switch (criteria.status().toLowerCase(Locale.ROOT)) {
+                case "up" -> sql.append(joinChecks
+                        ? " AND a.active = TRUE AND ls.is_up = TRUE"
+                        : " AND a.active = TRUE AND NOT EXISTS (SELECT 1 FROM incidents i WHERE i.app_id = a.id AND i.ended_at IS NULL)");
+                case "down" -> sql.append(joinChecks
+                        ? " AND a.active = TRUE AND ls.is_up = FALSE"
+                        : " AND a.active = TRUE AND EXISTS (SELECT 1 FROM incidents i WHERE i.app_id = a.id AND i.ended_at IS NULL)");
+                case "inactive" -> sql.append(" AND a.active = FALSE");
+                default -> {
+                    // "all" ou valeur inconnue : pas de filtre
+                }
+            }
+        }
+
+        Cursor cursor = Cursor.decode(criteria.after());
+        if (cursor != null) {
+            sql.append(" AND (a.name, a.id) > (:afterName, :afterId)");
+            binds.put("afterName", cursor.name());
+            binds.put("afterId", cursor.id());
+        }
+
+        // Une ligne de plus pour savoir s'il existe une page suivante
+        sql.append(" ORDER BY a.name, a.id LIMIT ").append(limit + 1);
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+        for (Map.Entry<String, Object> bind : binds.entrySet()) {
+            spec = spec.bind(bind.getKey(), bind.getValue());
+        }
+
+        return spec.map(this::readApp)
+                .all()
+                .collectList()
+                .flatMap(apps -> joinChecks ? Mono.just(apps) : withLatestStatus(apps))
+                .map(apps -> {
+                    if (apps.size() <= limit) {
+                        return new AppPage(apps, null);
+                    }
+                    List<MonitoredApp> page = apps.subList(0, limit);
+                    MonitoredApp last = page.get(limit - 1);
+                    return new AppPage(List.copyOf(page), new Cursor(last.getName(), last.getId()).encode());
+                });
+    }
+
+    public Mono<List<String>> getCategories() {
+        return databaseClient.sql("SELECT DISTINCT COALESCE(NULLIF(category, ''), '" + UNCATEGORIZED + "') AS category " +
+                        "FROM monitored_apps ORDER BY category")
+                .map(row -> row.get("category", String.class))
+                .all()
+                .collectList();
+    }
+
+    private MonitoredApp readApp(Row row, RowMetadata metadata) {
+        MonitoredApp app = converter.read(MonitoredApp.class, row, metadata);
+        Long statusId = metadata.contains("ls_id") ? row.get("ls_id", Long.class) : null;
+        if (statusId != null) {
+            app.setLastStatus(StatusCheck.builder()
+                    .id(statusId)
+                    .appId(app.getId())
+                    .appName(app.getName())
+                    .statusCode(row.get("ls_status_code", Integer.class))
+                    .isUp(row.get("ls_is_up", Boolean.class))
+                    .responseTimeMs(row.get("ls_response_time_ms", Integer.class))
+                    .errorCode(row.get("ls_error_code", Short.class))
+                    .errorDetail(row.get("ls_error_detail", String.class))
+                    .checkedAt(row.get("ls_checked_at", LocalDateTime.class))
+                    .build());
+        }
+        return app;
+    }
+
+    private Mono<List<MonitoredApp>> withLatestStatus(List<MonitoredApp> apps) {
+        return statusStore.findLatestForApps(apps.stream().map(MonitoredApp::getId).toList())
+                .collectMap(StatusCheck::getAppId)
+                .map(latest -> {
+                    apps.forEach(app -> app.setLastStatus(latest.get(app.getId())));
+                    return apps;
+                });
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    /**
+     * Curseur opaque : position (name, id) de la dernière application de la page
+     */
+    private record Cursor(String name, Long id) {
+
+        String encode() {
+            String raw = id + ":" + name;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String value) {
+            if (value == null || value.isBlank()) {
+                return null;
+            }
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+                int separator = raw.indexOf(':');
+                return new Cursor(raw.substring(separator + 1), Long.parseLong(raw.substring(0, separator)));
+            } catch (IllegalArgumentException | StringIndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + value);
+            }
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package org.azirar.glenn.handlers;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.azirar.glenn.models.BodyAssertionType;
+import org.azirar.glenn.models.ImportReport;
+import org.azirar.glenn.models.MonitoredApp;
+import org.azirar.glenn.repositories.MonitoredAppRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.r2dbc.core.ReactiveDataAccessStrategy;
+import org.springframework.data.relational.core.sql.SqlIdentifier;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.Parameter;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Import / export en masse des applications surveillées.
+ * Les lignes sont traitées en flux, insérées par lots, et leurs premières sondes
+ * sont étalées sur l'intervalle de monitoring au lieu d'être exécutées immédiatement.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AppTransferService {
+
+    // Colonnes exportées, dans l'ordre (noms des propriétés JSON de MonitoredApp)
+    public static final List<String> EXPORT_COLUMNS = List.of(
+            "name", "category", "description", "url", "acceptedStatuses", "active", "webhookUrl",
+            "bodyAssertionType", "bodyAssertionValue", "bodyAssertionExpected", "maxBodyBytes", "probeLocation");
+
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private final MonitoredAppRepository appRepository;
+    private final R2dbcEntityTemplate entityTemplate;
+    private final DatabaseClient databaseClient;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final MonitoringService monitoringService;
+    private final DashboardSnapshotService dashboardSnapshotService;
+    private final AppRegistry appRegistry;
+
+    @Value("${monitoring.import.batch-size:500}")
+    private int batchSize;
+
+    // --- IMPORT ---
+
+    /**
+     * Import CSV : la première ligne est l'en-tête (noms de colonnes en snake_case ou camelCase)
+     */
+    public Mono<ImportReport> importCsv(Flux<String> lines) {
+        Flux<ImportRow> rows = lines
+                .index()
+                .filter(line -> !line.getT2().isBlank())
+                .switchOnFirst((first, all) -> {
+                    if (!first.hasValue()) {
+                        return Flux.empty();
+                    }
+                    List<String> header = parseCsvLine(first.get().getT2()).stream()
+                            .map(AppTransferService::toPropertyName)
+                            .toList();
+                    return all.skip(1).map(line -> toRow(line.getT1() + 1, header, line.getT2()));
+                });
+        return importRows(rows);
+    }
+
+    /**
+     * Import JSON (tableau ou NDJSON), décodé élément par élément
+     */
+    public Mono<ImportReport> importApps(Flux<MonitoredApp> apps) {
+        return importRows(apps.index().map(app -> validate(app.getT1() + 1, app.getT2())));
+    }
+
+    private Mono<ImportReport> importRows(Flux<ImportRow> rows) {
+        AtomicLong rejected = new AtomicLong();
+        List<String> errors = Collections.synchronizedList(new ArrayList<>());
+
+        return rows
+                .doOnNext(row -> {
+                    if (row.error() != null) {
+                        rejected.incrementAndGet();
+                        if (errors.size() < MAX_REPORTED_ERRORS) {
+                            errors.add("Line " + row.line() + ": " + row.error());
+                        }
+                    }
+                })
+                .filter(row -> row.error() == null)
+                .map(ImportRow::app)
+                .buffer(batchSize)
+                .concatMap(batch -> insertBatch(batch)
+                        .collectList()
+                        // Première sonde étalée sur l'intervalle plutôt qu'un check immédiat
+                        .flatMapMany(ids -> appRegistry.refresh(ids)
+                                .doOnSuccess(done -> monitoringService.scheduleFirstProbes(ids))
+                                .thenMany(Flux.fromIterable(ids))))
+                .count()
+                .map(imported -> {
+                    if (imported > 0) {
+                        dashboardSnapshotService.invalidate();
+                    }
+                    log.info("📥 Import terminé : {} importées, {} rejetées", imported, rejected.get());
+                    return new ImportReport(imported, rejected.get(), List.copyOf(errors));
+                });
+    }
+
+    private ImportRow toRow(long line, List<String> header, String csvLine) {
+        List<String> values = parseCsvLine(csvLine);
+        Map<String, Object> properties = new HashMap<>();
+        for (int i = 0; i < header.size() && i < values.size(); i++) {
+            String value = values.get(i).trim();
+            if (!value.isEmpty()) {
+                properties.put(header.get(i), value);
+            }
+        }
+        try {
+            return validate(line, objectMapper.convertValue(properties, MonitoredApp.class));
+        } catch (IllegalArgumentException e) {
+            return new ImportRow(line, null, "Invalid value: " + e.getMessage());
+        }
+    }
+
+    private ImportRow validate(long line, MonitoredApp app) {
+        app.setId(null);
+        if (app.getAcceptedStatuses() == null || app.getAcceptedStatuses().isBlank()) {
+            app.setAcceptedStatuses("200");
+        }
+        if (app.getBodyAssertionType() == null) {
+            app.setBodyAssertionType(BodyAssertionType.NONE);
+        }
+        if (app.getActive() == null) {
+            app.setActive(true);
+        }
+        if (app.getLastStatusWasUp() == null) {
+            app.setLastStatusWasUp(true);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        app.setCreatedAt(now);
+        app.setUpdatedAt(now);
+
+        Set<ConstraintViolation<MonitoredApp>> violations = validator.validate(app);
+        if (!violations.isEmpty()) {
+            String message = violations.stream()
+                    .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", "));
+            return new ImportRow(line, null, message);
+        }
+        return new ImportRow(line, app, null);
+    }
+
+    /**
+     * INSERT multi-lignes d'un lot ; retourne les identifiants générés
+     */
+    private Flux<Long> insertBatch(List<MonitoredApp> apps) {
+        ReactiveDataAccessStrategy strategy = entityTemplate.getDataAccessStrategy();
+        List<Map<SqlIdentifier, Parameter>> rows = new ArrayList<>(apps.size());
+        for (MonitoredApp app : apps) {
+            Map<SqlIdentifier, Parameter> row = new LinkedHashMap<>(strategy.getOutboundRow(app));
+            row.remove(SqlIdentifier.unquoted("id"));
+            rows.add(row);
+        }
+        List<SqlIdentifier> columns = new ArrayList<>(rows.get(0).keySet());
+
+        StringBuilder sql = new StringBuilder("INSERT INTO monitored_apps (")
+                .append(columns.stream().map(strategy::toSql).collect(Collectors.joining(", ")))
+                .append(") VALUES ");
+        Map<String, Parameter> binds = new HashMap<>();
+        for (int r = 0; r < rows.size(); r++) {
+            sql.append(r == 0 ? "(" : ", (");
+            for (int c = 0; c < columns.size(); c++) {
+                String name = "p" + r + "_" + c;
+                sql.append(c == 0 ? ":" : ", :").append(name);
+                binds.put(name, rows.get(r).get(columns.get(c)));
+            }
+            sql.append(")");
+        }
+        sql.append(" RETURNING id");
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+        for (Map.Entry<String, Parameter> bind : binds.entrySet()) {
+            spec = spec.bind(bind.getKey(), bind.getValue());
+        }
+        return spec.map(row -> row.get("id", Long.class)).all();
+    }
+
+    // --- EXPORT ---
+
+    /**
+     * Export CSV en flux : une ligne par application, sans tout charger en mémoire
+     */
+    public Flux<DataBuffer> exportCsv() {
+        Flux<String> header = Flux.just(EXPORT_COLUMNS.stream()
+                .map(AppTransferService::toColumnName)
+                .collect(Collectors.joining(",")) + "\n");
+        Flux<String> lines = appRepository.findAll()
+                .map(app -> {
+                    Map<String, Object> values = objectMapper.convertValue(app, Map.class);
+                    return EXPORT_COLUMNS.stream()
+                            .map(column -> toCsvValue(values.get(column)))
+                            .collect(Collectors.joining(",")) + "\n";
+                });
+        return header.concatWith(lines).map(this::toBuffer);
+    }
+
+    /**
+     * Export JSON en flux : tableau écrit élément par élément
+     */
+    public Flux<DataBuffer> exportJson() {
+        Flux<String> items = appRepository.findAll()
+                .index()
+                .map(indexed -> {
+                    Map<String, Object> values = objectMapper.convertValue(indexed.getT2(), Map.class);
+                    Map<String, Object> exported = new LinkedHashMap<>();
+                    EXPORT_COLUMNS.forEach(column -> exported.put(column, values.get(column)));
+                    try {
+                        return (indexed.getT1() == 0 ? "\n" : ",\n") + objectMapper.writeValueAsString(exported);
+                    } catch (JsonProcessingException e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+        return Flux.just("[").concatWith(items).concatWith(Flux.just("\n]\n")).map(this::toBuffer);
+    }
+
+    private DataBuffer toBuffer(String value) {
+        return DefaultDataBufferFactory.sharedInstance.wrap(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // --- CSV ---
+
+    static List<String> parseCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else if (c != '\r') {
+                current.append(c);
+            }
+        }
+        values.add(current.toString());
+        return values;
+    }
+
+    private static String toCsvValue(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.contains(",") || text.contains("\"") || text.contains("\n")) {
+            return "\"" + text.replace("\"", "\"\"").replace("\n", " ") + "\"";
+        }
+        return text;
+    }
+
+    // accepted_statuses -> acceptedStatuses
+    private static String toPropertyName(String column) {
+        String trimmed = column.trim().replace("\uFEFF", "");
+        StringBuilder property = new StringBuilder();
+        boolean upper = false;
+        for (char c : trimmed.toCharArray()) {
+            if (c == '_' || c == '-' || c == ' ') {
+                upper = true;
+            } else {
+                property.append(upper ? Character.toUpperCase(c) : c);
+                upper = false;
+            }
+        }
+        return property.toString();
+    }
+
+    // acceptedStatuses -> accepted_statuses
+    private static String toColumnName(String property) {
+        return property.replaceAll("([A-Z])", "_$1").toLowerCase(Locale.ROOT);
+    }
+
+    private record ImportRow(long line, MonitoredApp app, String error) {
+    }
+}
@@ -0,0 +1,286 @@
+package org.azirar.glenn.handlers;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import org.azirar.glenn.models.BodyAssertionType;
+import org.azirar.glenn.models.MonitoredApp;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Évalue l'assertion de corps d'une application au fil des {@link DataBuffer} reçus,
+ * sans jamais agréger la réponse complète. Une instance par sonde.
+ * {@link #feed} retourne un verdict dès que l'assertion est décidée, ou {@code null} s'il faut lire la suite.
+ */
+abstract class BodyAssertionEvaluator {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final int maxBytes;
+    private long bytesRead;
+
+    private BodyAssertionEvaluator(int maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Crée l'évaluateur de l'application.
+     *
+     * @throws IllegalArgumentException si l'assertion est mal configurée (regex ou pointer invalide)
+     */
+    static BodyAssertionEvaluator of(MonitoredApp app, int defaultMaxBytes) {
+        int maxBytes = app.getMaxBodyBytes() != null && app.getMaxBodyBytes() > 0
+                ? app.getMaxBodyBytes()
+                : defaultMaxBytes;
+        String value = app.getBodyAssertionValue() == null ? "" : app.getBodyAssertionValue();
+        BodyAssertionType type = app.getBodyAssertionType();
+        if (type == BodyAssertionType.SUBSTRING) {
+            if (value.isEmpty()) {
+                throw new IllegalArgumentException("substring is empty");
+            }
+            return new SubstringEvaluator(maxBytes, value);
+        } else if (type == BodyAssertionType.REGEX) {
+            return new RegexEvaluator(maxBytes, Pattern.compile(value));
+        } else if (type == BodyAssertionType.JSON_POINTER) {
+            return new JsonPointerEvaluator(maxBytes, JsonPointer.compile(value), app.getBodyAssertionExpected());
+        }
+        throw new IllegalArgumentException("no body assertion configured");
+    }
+
+    /**
+     * Consomme (et libère) un morceau du corps.
+     */
+    final Verdict feed(DataBuffer buffer) {
+        try {
+            int length = (int) Math.min(buffer.readableByteCount(), maxBytes - bytesRead);
+            if (length > 0) {
+                byte[] chunk = new byte[length];
+                buffer.read(chunk);
+                bytesRead += length;
+                Verdict verdict = accept(chunk);
+                if (verdict != null) {
+                    return verdict;
+                }
+            }
+            if (bytesRead >= maxBytes) {
+                // Budget épuisé sans décision : on abandonne le téléchargement
+                return exhausted();
+            }
+            return null;
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+
+    /**
+     * Fin du corps atteinte sans décision anticipée.
+     */
+    abstract Verdict finish();
+
+    abstract Verdict accept(byte[] chunk);
+
+    /**
+     * Budget d'octets épuisé avant la fin du corps.
+     */
+    Verdict exhausted() {
+        return Verdict.fail("undecided after " + maxBytes + " bytes");
+    }
+
+    record Verdict(boolean passed, String message) {
+
+        static Verdict pass() {
+            return new Verdict(true, null);
+        }
+
+        static Verdict fail(String message) {
+            return new Verdict(false, message);
+        }
+    }
+
+    /**
+     * Recherche d'octets : on conserve la fin du morceau précédent pour les correspondances à cheval.
+     */
+    private static final class SubstringEvaluator extends BodyAssertionEvaluator {
+
+        private final String text;
+        private final byte[] needle;
+        private byte[] tail = new byte[0];
+
+        private SubstringEvaluator(int maxBytes, String text) {
+            super(maxBytes);
+            this.text = text;
+            this.needle = text.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        Verdict accept(byte[] chunk) {
+            byte[] window = new byte[tail.length + chunk.length];
+            System.arraycopy(tail, 0, window, 0, tail.length);
+            System.arraycopy(chunk, 0, window, tail.length, chunk.length);
+            if (indexOf(window) >= 0) {
+                return Verdict.pass();
+            }
+            int keep = Math.min(needle.length - 1, window.length);
+            tail = new byte[keep];
+            System.arraycopy(window, window.length - keep, tail, 0, keep);
+            return null;
+        }
+
+        @Override
+        Verdict finish() {
+            return Verdict.fail("\"" + text + "\" not found");
+        }
+
+        private int indexOf(byte[] window) {
+            outer:
+            for (int i = 0; i <= window.length - needle.length; i++) {
+                for (int j = 0; j < needle.length; j++) {
+                    if (window[i + j] != needle[j]) {
+                        continue outer;
+                    }
+                }
+                return i;
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Regex sur le texte décodé jusqu'ici (borné par le budget d'octets).
+     * Chaque morceau n'est parcouru qu'avec les {@value #OVERLAP_CHARS} caractères qui le précèdent,
+     * pour les correspondances à cheval ; le texte entier n'est parcouru qu'une fois, à la fin.
+     * Une correspondance qui ne dépend pas de la suite du texte ({@code hitEnd} faux) est définitive.
+     */
+    private static final class RegexEvaluator extends BodyAssertionEvaluator {
+
+        private static final int OVERLAP_CHARS = 1024;
+
+        private final Pattern pattern;
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private final StringBuilder text = new StringBuilder();
+        private ByteBuffer pending = ByteBuffer.allocate(0);
+
+        private RegexEvaluator(int maxBytes, Pattern pattern) {
+            super(maxBytes);
+            this.pattern = pattern;
+        }
+
+        @Override
+        Verdict accept(byte[] chunk) {
+            // Les octets d'un caractère coupé entre deux morceaux restent dans "pending"
+            ByteBuffer input = ByteBuffer.allocate(pending.remaining() + chunk.length);
+            input.put(pending).put(chunk).flip();
+            CharBuffer output = CharBuffer.allocate(input.remaining());
+            decoder.decode(input, output, false);
+            int scanFrom = Math.max(0, text.length() - OVERLAP_CHARS);
+            text.append(output.flip());
+            pending = input;
+
+            // Bornes transparentes : ancres et lookbehind voient le texte avant la fenêtre
+            Matcher matcher = pattern.matcher(text)
+                    .region(scanFrom, text.length())
+                    .useTransparentBounds(true)
+                    .useAnchoringBounds(false);
+            return matcher.find() && !matcher.hitEnd() ? Verdict.pass() : null;
+        }
+
+        @Override
+        Verdict finish() {
+            return pattern.matcher(text).find()
+                    ? Verdict.pass()
+                    : Verdict.fail("no match for /" + pattern.pattern() + "/");
+        }
+
+        @Override
+        Verdict exhausted() {
+            // Corps tronqué : le texte déjà lu fait foi, y compris une correspondance en fin de texte
+            return finish();
+        }
+    }
+
+    /**
+     * JSON pointer via le parser non bloquant de Jackson : le document n'est jamais matérialisé.
+     * Sans valeur attendue, l'assertion vérifie seulement la présence du pointer.
+     */
+    private static final class JsonPointerEvaluator extends BodyAssertionEvaluator {
+
+        private final JsonPointer pointer;
+        private final String expected;
+        private final JsonParser parser;
+        private final ByteArrayFeeder feeder;
+
+        private JsonPointerEvaluator(int maxBytes, JsonPointer pointer, String expected) {
+            super(maxBytes);
+            this.pointer = pointer;
+            this.expected = expected == null || expected.isEmpty() ? null : expected;
+            try {
+                this.parser = JSON_FACTORY.createNonBlockingByteArrayParser();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+        }
+
+        @Override
+        Verdict accept(byte[] chunk) {
+            try {
+                feeder.feedInput(chunk, 0, chunk.length);
+                return drain();
+            } catch (IOException e) {
+                return invalidJson(e);
+            }
+        }
+
+        @Override
+        Verdict finish() {
+            try {
+                feeder.endOfInput();
+                Verdict verdict = drain();
+                return verdict != null ? verdict : Verdict.fail(pointer + " not found");
+            } catch (IOException e) {
+                return invalidJson(e);
+            }
+        }
+
+        private static Verdict invalidJson(IOException e) {
+            return Verdict.fail("invalid JSON: "
+                    + (e instanceof JsonProcessingException json ? json.getOriginalMessage() : e.getMessage()));
+        }
+
+        private Verdict drain() throws IOException {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                if (token == JsonToken.FIELD_NAME || token.isStructEnd()
+                        || !pointer.equals(parser.getParsingContext().pathAsPointer())) {
+                    continue;
+                }
+                if (expected == null) {
+                    return Verdict.pass();
+                }
+                if (!token.isScalarValue()) {
+                    return Verdict.fail(pointer + " is not a scalar value");
+                }
+                String actual = parser.getText();
+                return expected.equals(actual)
+                        ? Verdict.pass()
+                        : Verdict.fail(pointer + " is " + actual + ", expected " + expected);
+            }
+            return null;
+        }
+    }
+}
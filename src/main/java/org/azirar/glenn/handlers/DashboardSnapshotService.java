@@ -0,0 +1,133 @@
+package org.azirar.glenn.handlers;
+
+import lombok.extern.slf4j.Slf4j;
+import org.azirar.glenn.models.MonitoredApp;
+import org.azirar.glenn.models.StatusCheck;
+import org.azirar.glenn.repositories.StatusStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Modèle de vue partagé par les pages dashboard et supervision.
+ * Il n'est reconstruit que lorsqu'une application change, qu'un statut passe UP/DOWN,
+ * ou que le snapshot dépasse son âge maximal ; tous les écrans qui se rafraîchissent
+ * entre-temps réutilisent le même snapshot et le même ETag.
+ * <p>
+ * L'ETag ne dépend que de la version : une reconstruction à l'expiration (latences, heure
+ * du dernier check, que les pages reçoivent déjà par le live-status) le laisse inchangé.
+ */
+@Slf4j
+@Service
+public class DashboardSnapshotService {
+
+    private final AppRegistry appRegistry;
+    private final StatusStore statusRepository;
+
+    private final AtomicLong version = new AtomicLong();
+    // Distingue les versions d'une instance redémarrée, qui repart de zéro
+    private final String epoch = Long.toHexString(System.currentTimeMillis());
+    private final Map<Long, Boolean> lastKnownUp = new ConcurrentHashMap<>();
+
+    @Value("${dashboard.cache.max-age:${monitoring.interval:10000}}")
+    private long maxAge;
+
+    private volatile Mono<DashboardSnapshot> cachedSnapshot;
+    private volatile long cachedVersion = -1;
+    private volatile long cachedAt;
+
+    public DashboardSnapshotService(AppRegistry appRegistry,
+                                    StatusStore statusRepository) {
+        this.appRegistry = appRegistry;
+        this.statusRepository = statusRepository;
+    }
+
+    /**
+     * Invalide le snapshot (ajout, modification, suppression d'une application)
+     */
+    public void invalidate() {
+        version.incrementAndGet();
+    }
+
+    @EventListener
+    public void onAppsChanged(AppRegistry.AppsChanged changes) {
+        invalidate();
+    }
+
+    /**
+     * Invalide le snapshot uniquement si le statut de l'application a changé
+     */
+    public void onStatusCheck(StatusCheck check) {
+        if (check.getAppId() == null) {
+            return;
+        }
+        Boolean previous = lastKnownUp.put(check.getAppId(), check.getIsUp());
+        if (!Objects.equals(previous, check.getIsUp())) {
+            invalidate();
+        }
+    }
+
+    public Mono<DashboardSnapshot> getSnapshot() {
+        long currentVersion = version.get();
+        Mono<DashboardSnapshot> snapshot = cachedSnapshot;
+        if (snapshot != null && cachedVersion == currentVersion
+                && System.currentTimeMillis() - cachedAt < maxAge) {
+            return snapshot;
+        }
+        synchronized (this) {
+            if (cachedSnapshot == snapshot || cachedVersion != currentVersion) {
+                // cache() : les requêtes concurrentes partagent la même reconstruction
+                cachedAt = System.currentTimeMillis();
+                cachedSnapshot = buildSnapshot(currentVersion).cache();
+                cachedVersion = currentVersion;
+            }
+            return cachedSnapshot;
+        }
+    }
+
+    private Mono<DashboardSnapshot> buildSnapshot(long snapshotVersion) {
+        return Mono.zip(
+                appRegistry.findAll().collectList(),
+                statusRepository.findLatestStatusForAllApps().collectList()
+        ).map(tuple -> {
+            List<MonitoredApp> apps = List.copyOf(tuple.getT1());
+
+            Map<Long, StatusCheck> latestStatuses = new HashMap<>();
+            for (StatusCheck status : tuple.getT2()) {
+                latestStatuses.putIfAbsent(status.getAppId(), status);
+                lastKnownUp.putIfAbsent(status.getAppId(), status.getIsUp());
+            }
+
+            List<String> categories = apps.stream()
+                    .map(app -> app.getCategory() == null || app.getCategory().isBlank()
+                            ? "Uncategorized"
+                            : app.getCategory())
+                    .distinct()
+                    .sorted()
+                    .toList();
+
+            LocalDateTime builtAt = LocalDateTime.now();
+            String etag = "\"" + epoch + "-" + Long.toHexString(snapshotVersion) + "\"";
+
+            log.debug("Dashboard snapshot rebuilt - version {}, {} apps", snapshotVersion, apps.size());
+            return new DashboardSnapshot(etag, apps, Collections.unmodifiableMap(latestStatuses), categories, builtAt);
+        }).onErrorResume(e -> {
+            // On ne garde pas une erreur en cache
+            invalidate();
+            return Mono.error(e);
+        });
+    }
+
+    public record DashboardSnapshot(String etag,
+                                    List<MonitoredApp> apps,
+                                    Map<Long, StatusCheck> latestStatuses,
+                                    List<String> categories,
+                                    LocalDateTime builtAt) {
+    }
+}
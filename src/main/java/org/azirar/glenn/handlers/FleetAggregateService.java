@@ -0,0 +1,246 @@
+package org.azirar.glenn.handlers;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.azirar.glenn.models.FleetAggregates;
+import org.azirar.glenn.models.FleetAggregates.CategoryAggregate;
+import org.azirar.glenn.models.Incident;
+import org.azirar.glenn.models.MonitoredApp;
+import org.azirar.glenn.models.StatusCheck;
+import org.azirar.glenn.repositories.StatusStore;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Agrégats de la flotte et par catégorie (UP, DOWN, inactives, latence la plus haute,
+ * indisponibilité la plus longue), tenus à jour en O(1) à chaque check et à chaque
+ * modification d'application, au lieu d'être recalculés depuis les listes complètes.
+ * <p>
+ * Les extrêmes sont suivis par leur détenteur : s'il change de valeur ou sort du groupe,
+ * ils sont recalculés une seule fois, à la lecture suivante.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FleetAggregateService {
+
+    private final AppRegistry appRegistry;
+    private final StatusStore statusRepository;
+    private final IncidentService incidentService;
+
+    // Accès sous le verrou de l'instance : le flux de monitoring enregistre les checks un par un
+    private final Map<Long, AppState> apps = new HashMap<>();
+    private final Map<String, Aggregate> categories = new TreeMap<>();
+    private final Aggregate fleet = new Aggregate();
+    private long version;
+    private FleetAggregates cached;
+
+    /**
+     * Amorce les statuts depuis le dernier check et les incidents ouverts ; les applications
+     * arrivent par les événements du registre
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        appRegistry.findAll()
+                .then(Mono.zip(
+                        statusRepository.findLatestStatusForAllApps().collectList(),
+                        incidentService.getOpenIncidents().collectMap(Incident::getAppId, Incident::getStartedAt)))
+                .subscribe(
+                        tuple -> seed(tuple.getT1(), tuple.getT2()),
+                        e -> log.error("❌ Failed to load fleet aggregates: {}", e.getMessage()));
+    }
+
+    private synchronized void seed(List<StatusCheck> latest, Map<Long, LocalDateTime> downSince) {
+        Set<Long> seeded = new HashSet<>();
+        for (StatusCheck check : latest) {
+            AppState state = apps.get(check.getAppId());
+            // Un check live déjà reçu est plus récent que l'amorçage
+            if (state != null && state.up == null && seeded.add(check.getAppId())) {
+                apply(state, check, downSince.getOrDefault(check.getAppId(), check.getCheckedAt()));
+            }
+        }
+        log.info("🧮 Fleet aggregates ready: {} apps in {} categories", apps.size(), categories.size());
+    }
+
+    /**
+     * Comptabilise un check enregistré
+     */
+    public synchronized void record(StatusCheck check) {
+        AppState state = apps.get(check.getAppId());
+        if (state != null) {
+            apply(state, check, check.getCheckedAt());
+        }
+    }
+
+    private void apply(AppState state, StatusCheck check, LocalDateTime downSince) {
+        Aggregate category = categories.get(state.category);
+        Kind before = state.kind();
+        LocalDateTime downBefore = state.downSince;
+        boolean holder = category.slowest == state || fleet.slowest == state;
+
+        detach(state);
+        boolean up = Boolean.TRUE.equals(check.getIsUp());
+        if (up) {
+            state.downSince = null;
+        } else if (state.downSince == null) {
+            state.downSince = downSince;
+        }
+        state.up = up;
+        state.latency = check.getResponseTimeMs();
+        attach(state);
+
+        // Une latence sous le maximum d'un groupe ne change rien de visible ;
+        // le groupe a pu être recréé s'il n'avait que ce membre
+        category = categories.get(state.category);
+        if (before != state.kind() || !Objects.equals(downBefore, state.downSince)
+                || holder || category.slowest == state || fleet.slowest == state) {
+            version++;
+        }
+    }
+
+    @EventListener
+    public synchronized void onAppsChanged(AppRegistry.AppsChanged changes) {
+        for (MonitoredApp app : changes.updated()) {
+            AppState state = apps.computeIfAbsent(app.getId(), AppState::new);
+            if (state.category != null) {
+                detach(state);
+            }
+            state.category = categoryOf(app);
+            state.active = Boolean.TRUE.equals(app.getActive());
+            attach(state);
+        }
+        for (Long id : changes.removed()) {
+            AppState state = apps.remove(id);
+            if (state != null) {
+                detach(state);
+            }
+        }
+        version++;
+    }
+
+    private void attach(AppState state) {
+        categories.computeIfAbsent(state.category, name -> new Aggregate()).add(state);
+        fleet.add(state);
+    }
+
+    private void detach(AppState state) {
+        Aggregate category = categories.get(state.category);
+        category.remove(state);
+        if (category.members.isEmpty()) {
+            categories.remove(state.category);
+        }
+        fleet.remove(state);
+    }
+
+    private static String categoryOf(MonitoredApp app) {
+        return app.getCategory() == null || app.getCategory().isBlank()
+                ? AppSearchService.UNCATEGORIZED
+                : app.getCategory();
+    }
+
+    // --- LECTURE ---
+
+    /**
+     * Agrégats courants ; reconstruits seulement quand la version a changé
+     */
+    public synchronized FleetAggregates getAggregates() {
+        if (cached == null || cached.version() != version) {
+            List<CategoryAggregate> list = new ArrayList<>(categories.size());
+            categories.forEach((name, aggregate) -> list.add(aggregate.toRecord(name)));
+            cached = new FleetAggregates(version, LocalDateTime.now(), fleet.toRecord(null), List.copyOf(list));
+        }
+        return cached;
+    }
+
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    private enum Kind {UP, DOWN, INACTIVE, UNKNOWN}
+
+    private static final class AppState {
+        private final Long id;
+        private String category;
+        private boolean active;
+        private Boolean up;
+        private Integer latency;
+        private LocalDateTime downSince;
+
+        AppState(Long id) {
+            this.id = id;
+        }
+
+        Kind kind() {
+            if (!active) {
+                return Kind.INACTIVE;
+            }
+            if (up == null) {
+                return Kind.UNKNOWN;
+            }
+            return up ? Kind.UP : Kind.DOWN;
+        }
+
+        boolean hasLatency() {
+            return kind() == Kind.UP && latency != null;
+        }
+
+        boolean isDown() {
+            return kind() == Kind.DOWN && downSince != null;
+        }
+    }
+
+    /**
+     * Compteurs d'un groupe ; {@code stale} quand un détenteur d'extrême l'a quitté
+     */
+    private static final class Aggregate {
+        private final Set<AppState> members = new HashSet<>();
+        private final int[] counts = new int[Kind.values().length];
+        private AppState slowest;
+        private AppState longestDown;
+        private boolean stale;
+
+        void add(AppState state) {
+            members.add(state);
+            counts[state.kind().ordinal()]++;
+            if (!stale) {
+                trackExtremes(state);
+            }
+        }
+
+        void remove(AppState state) {
+            members.remove(state);
+            counts[state.kind().ordinal()]--;
+            if (state == slowest || state == longestDown) {
+                stale = true;
+            }
+        }
+
+        CategoryAggregate toRecord(String name) {
+            if (stale) {
+                slowest = null;
+                longestDown = null;
+                stale = false;
+                members.forEach(this::trackExtremes);
+            }
+            return new CategoryAggregate(name, members.size(),
+                    counts[Kind.UP.ordinal()], counts[Kind.DOWN.ordinal()],
+                    counts[Kind.INACTIVE.ordinal()], counts[Kind.UNKNOWN.ordinal()],
+                    slowest != null ? slowest.latency : null, slowest != null ? slowest.id : null,
+                    longestDown != null ? longestDown.downSince : null, longestDown != null ? longestDown.id : null);
+        }
+
+        private void trackExtremes(AppState state) {
+            if (state.hasLatency() && (slowest == null || state.latency > slowest.latency)) {
+                slowest = state;
+            }
+            if (state.isDown() && (longestDown == null || state.downSince.isBefore(longestDown.downSince))) {
+                longestDown = state;
+            }
+        }
+    }
+}
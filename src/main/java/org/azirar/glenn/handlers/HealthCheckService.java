@@ -0,0 +1,200 @@
+package org.azirar.glenn.handlers;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.azirar.glenn.jfr.HealthCheckEvent;
+import org.azirar.glenn.models.ErrorKind;
+import org.azirar.glenn.models.MonitoredApp;
+import org.azirar.glenn.models.StatusCheck;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Sondes HTTP et TCP d'une application.
+ * Sans dépendance à la base : utilisé par le nœud central comme par les agents distants.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class HealthCheckService {
+
+    private final WebClient.Builder webClientBuilder;
+
+    @Value("${monitoring.timeout:5000}")
+    private int monitoringTimeout;
+    @Value("${monitoring.body.max-bytes:65536}")
+    private int maxBodyBytes;
+
+    public Mono<StatusCheck> performHealthCheck(MonitoredApp app) {
+        String url = app.getUrl().toLowerCase().trim();
+
+        if (url.startsWith("http://") || url.startsWith("https://")) {
+            return checkHttp(app);
+        } else {
+            return checkStream(app);
+        }
+    }
+
+    private Mono<StatusCheck> checkHttp(MonitoredApp app) {
+        long startTime = System.currentTimeMillis();
+        HealthCheckEvent event = HealthCheckEvent.begin(app,
+                app.getUrl().trim().toLowerCase().startsWith("https") ? "https" : "http");
+        return webClientBuilder.build()
+                .get()
+                .uri(app.getUrl())
+                .exchangeToMono(response -> {
+                    event.responseReceived();
+                    long duration = System.currentTimeMillis() - startTime;
+                    int statusCode = response.statusCode().value();
+
+                    boolean isUp = app.getAcceptedStatusesList().contains(statusCode);
+
+                    log.debug("App {} - Code: {} - Accepted: {} - isUp: {}",
+                            app.getName(), statusCode, app.getAcceptedStatusesList(), isUp);
+
+                    if (!isUp || !app.hasBodyAssertion()) {
+                        // Corps jamais lu : exchangeToMono le libère
+                        return Mono.just(buildStatus(app, statusCode, isUp, duration).build());
+                    }
+                    return checkBody(app, response, statusCode, startTime);
+                })
+                .timeout(Duration.ofSeconds(5))
+                .onErrorResume(e -> {
+                    long duration = System.currentTimeMillis() - startTime;
+
+                    // Récupérer seulement la nature de l'erreur sans la stacktrace
+                    StatusCheck check = classifyError(buildStatus(app, 0, false, duration), e).build();
+
+                    // Log simplifié sans stacktrace
+                    log.warn("❌ Health check failed for {}: {}", app.getName(), check.getErrorMessage());
+
+                    return Mono.just(check);
+                })
+                .doOnNext(event::complete);
+    }
+
+    /**
+     * Évalue l'assertion de corps au fil des morceaux reçus ; la réponse est annulée
+     * dès que le verdict est connu ou que le budget d'octets est épuisé.
+     */
+    private Mono<StatusCheck> checkBody(MonitoredApp app, ClientResponse response, int statusCode, long startTime) {
+        BodyAssertionEvaluator evaluator;
+        try {
+            evaluator = BodyAssertionEvaluator.of(app, maxBodyBytes);
+        } catch (IllegalArgumentException e) {
+            return Mono.just(buildStatus(app, statusCode, false, System.currentTimeMillis() - startTime)
+                    .error(ErrorKind.INVALID_ASSERTION, e.getMessage())
+                    .build());
+        }
+
+        return response.bodyToFlux(DataBuffer.class)
+                .<BodyAssertionEvaluator.Verdict>handle((buffer, sink) -> {
+                    BodyAssertionEvaluator.Verdict verdict = evaluator.feed(buffer);
+                    if (verdict != null) {
+                        sink.next(verdict);
+                    }
+                })
+                .next()
+                .switchIfEmpty(Mono.fromSupplier(evaluator::finish))
+                .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+                .map(verdict -> {
+                    StatusCheck.StatusCheckBuilder check = buildStatus(app, statusCode, verdict.passed(),
+                            System.currentTimeMillis() - startTime);
+                    return (verdict.passed() ? check : check.error(ErrorKind.BODY_ASSERTION, verdict.message())).build();
+                });
+    }
+
+    private Mono<StatusCheck> checkStream(MonitoredApp app) {
+        long startTime = System.currentTimeMillis();
+        HealthCheckEvent event = HealthCheckEvent.begin(app, "tcp");
+
+        return Mono.fromCallable(() -> {
+                    try {
+                        // Extraction de l'hôte et du port (ex: postgres://localhost:5432)
+                        String cleanUrl = app.getUrl().replaceAll("^[a-zA-Z]+://", "");
+                        String host;
+                        int port;
+
+                        if (cleanUrl.contains(":")) {
+                            String[] parts = cleanUrl.split(":");
+                            host = parts[0];
+                            port = Integer.parseInt(parts[1]);
+                        } else {
+                            host = cleanUrl;
+                            port = 22;
+                        }
+
+                        try (java.net.Socket socket = new java.net.Socket()) {
+                            socket.connect(new java.net.InetSocketAddress(host, port), this.monitoringTimeout);
+                            event.responseReceived();
+                            return true;
+                        }
+                    } catch (Exception e) {
+                        return false;
+                    }
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(isUp -> {
+                    long duration = System.currentTimeMillis() - startTime;
+                    // CLÉ : On met 200 si la connexion TCP a réussi, sinon 0 ou 503
+                    StatusCheck.StatusCheckBuilder check = buildStatus(app, isUp ? 200 : 0, isUp, duration);
+                    return (isUp ? check : check.error(ErrorKind.PORT_UNREACHABLE, null)).build();
+                })
+                .doOnNext(event::complete);
+    }
+
+    private StatusCheck.StatusCheckBuilder classifyError(StatusCheck.StatusCheckBuilder check, Throwable e) {
+        if (e == null) return check.error(ErrorKind.UNKNOWN, "Unknown error");
+
+        String msg = e.getMessage();
+        String className = e.getClass().getSimpleName();
+
+        // Mapping des erreurs courantes vers un code, le détail seulement quand il varie
+        if (e instanceof javax.net.ssl.SSLHandshakeException) {
+            if (msg != null && msg.contains("unrecognized_name")) {
+                return check.error(ErrorKind.SSL_SNI, null);
+            }
+            return check.error(ErrorKind.SSL_HANDSHAKE, msg != null ? msg : "Unknown SSL error");
+        } else if (e instanceof java.util.concurrent.TimeoutException) {
+            return check.error(ErrorKind.TIMEOUT, null);
+        } else if (e instanceof io.netty.channel.ConnectTimeoutException) {
+            return check.error(ErrorKind.CONNECT_TIMEOUT, null);
+        } else if (className.contains("ConnectException") ||
+                (msg != null && msg.contains("Connection refused"))) {
+            return check.error(ErrorKind.CONNECTION_REFUSED, null);
+        } else if (e instanceof org.springframework.web.reactive.function.client.WebClientRequestException) {
+            // Extraire la cause racine si possible
+            Throwable cause = e.getCause();
+            if (cause != null) {
+                String causeMsg = cause.getMessage();
+                if (causeMsg != null && causeMsg.contains("Connection refused")) {
+                    return check.error(ErrorKind.CONNECTION_REFUSED, null);
+                }
+                return check.error(ErrorKind.REQUEST_FAILED, causeMsg);
+            }
+            return check.error(ErrorKind.REQUEST_FAILED, msg != null ? msg : "Unknown request error");
+        }
+
+        // Pour toutes les autres erreurs, prendre juste le message ou le nom de la classe
+        return check.error(ErrorKind.UNKNOWN, msg != null ? msg : className);
+    }
+
+    private StatusCheck.StatusCheckBuilder buildStatus(MonitoredApp app, int code, boolean isUp, long ms) {
+        return StatusCheck.builder()
+                .appId(app.getId())
+                .appName(app.getName())
+                .statusCode(code)
+                .isUp(isUp)
+                .responseTimeMs((int) ms)
+                .checkedAt(LocalDateTime.now());
+    }
+}
@@ -0,0 +1,208 @@
+package org.azirar.glenn.handlers;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.azirar.glenn.models.ArchivedChecks;
+import org.azirar.glenn.models.HistoryUptime;
+import org.azirar.glenn.models.StatusCheck;
+import org.azirar.glenn.repositories.ArchiveChunkCodec;
+import org.azirar.glenn.repositories.ArchivedChecksRepository;
+import org.azirar.glenn.repositories.StatusStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Archive long terme de l'historique : les checks au-delà de {@code monitoring.history} sont
+ * compressés dans status_check_archive, un lot par application et par jour, puis supprimés
+ * de l'historique récent. Les lectures longue période décodent ces lots au fil de l'eau,
+ * puis enchaînent sur l'historique récent.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class HistoryArchiveService {
+
+    // Taille des listes d'identifiants d'un DELETE (limite de paramètres de PostgreSQL)
+    private static final int DELETE_BATCH_SIZE = 10_000;
+
+    private final ArchivedChecksRepository archiveRepository;
+    private final StatusStore statusRepository;
+    private final TransactionalOperator transactionalOperator;
+
+    @Value("${monitoring.archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${monitoring.archive.retention-days:400}")
+    private int retentionDays;
+
+    @Value("${monitoring.history:5000}")
+    private int maxHistoryPerApp;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Archive les checks donnés (du plus ancien au plus récent), puis supprime exactement ceux-là
+     * de l'historique récent ; retourne le nombre de checks supprimés.
+     * <p>
+     * Chaque jour est fusionné dans le lot existant, dans une transaction qui porte aussi la
+     * suppression quand les checks sont en base. Cette transaction prend un verrou par application :
+     * deux passages concurrents fusionnent l'un après l'autre et le jour garde un seul lot.
+     * Un check déjà archivé (même horodatage, dans n'importe quel lot du jour) n'est gardé qu'une fois :
+     * un passage interrompu peut être rejoué sans double compte.
+     */
+    public Mono<Integer> archiveAndTrim(Long appId, Flux<StatusCheck> oldestFirst) {
+        return oldestFirst
+                .bufferUntilChanged(check -> check.getCheckedAt().toLocalDate())
+                .concatMap(checks -> archiveRepository.lockApp(appId)
+                        .then(mergeIntoDay(appId, checks))
+                        .then(deleteArchived(appId, checks))
+                        .as(transactionalOperator::transactional))
+                .reduce(0, Integer::sum);
+    }
+
+    private Mono<ArchivedChecks> mergeIntoDay(Long appId, List<StatusCheck> checks) {
+        LocalDate day = checks.get(0).getCheckedAt().toLocalDate();
+        return archiveRepository.findByAppIdAndDayOrderById(appId, day)
+                .collectList()
+                .flatMap(existing -> {
+                    List<StatusCheck> merged = new ArrayList<>();
+                    Set<Long> archivedAt = new HashSet<>();
+                    for (ArchivedChecks chunk : existing) {
+                        ArchiveChunkCodec.decode(appId, chunk.getPayload()).forEachRemaining(check -> {
+                            // Les lots en double d'un même jour se recouvrent
+                            if (archivedAt.add(ArchiveChunkCodec.toMillis(check.getCheckedAt()))) {
+                                merged.add(check);
+                            }
+                        });
+                    }
+                    for (StatusCheck check : checks) {
+                        if (archivedAt.add(ArchiveChunkCodec.toMillis(check.getCheckedAt()))) {
+                            merged.add(check);
+                        }
+                    }
+                    ArchivedChecks chunk = toChunk(appId, merged);
+                    if (existing.isEmpty()) {
+                        return archiveRepository.save(chunk);
+                    }
+                    // Le lot du jour est réécrit ; les lots en trop d'avant la fusion par jour disparaissent
+                    chunk.setId(existing.get(0).getId());
+                    return archiveRepository.save(chunk)
+                            .flatMap(saved -> archiveRepository.deleteAll(existing.subList(1, existing.size()))
+                                    .thenReturn(saved));
+                });
+    }
+
+    private Mono<Integer> deleteArchived(Long appId, List<StatusCheck> checks) {
+        return Flux.fromIterable(checks)
+                .map(StatusCheck::getId)
+                .buffer(DELETE_BATCH_SIZE)
+                .concatMap(ids -> statusRepository.deleteChecks(appId, ids))
+                .reduce(0, Integer::sum);
+    }
+
+    private static ArchivedChecks toChunk(Long appId, List<StatusCheck> checks) {
+        // Un check d'agent en retard peut arriver dans le désordre
+        List<StatusCheck> sorted = new ArrayList<>(checks);
+        sorted.sort(Comparator.comparing(StatusCheck::getCheckedAt));
+        long[] sum = new long[5];
+        sorted.forEach(check -> add(sum, tally(check, 1)));
+        return ArchivedChecks.builder()
+                .appId(appId)
+                .day(sorted.get(0).getCheckedAt().toLocalDate())
+                .firstAt(sorted.get(0).getCheckedAt())
+                .lastAt(sorted.get(sorted.size() - 1).getCheckedAt())
+                .checkCount(sorted.size())
+                .upCount((int) sum[1])
+                .latencySumMs(sum[3])
+                .latencyCount((int) sum[4])
+                .codecVersion(ArchiveChunkCodec.VERSION)
+                .payload(ArchiveChunkCodec.encode(sorted))
+                .build();
+    }
+
+    /**
+     * Checks de [from, to) dans l'ordre chronologique : archive puis historique récent
+     */
+    public Flux<StatusCheck> getHistory(Long appId, LocalDateTime from, LocalDateTime to) {
+        Flux<StatusCheck> archived = archiveRepository.findOverlapping(appId, from, to)
+                .concatMap(chunk -> Flux.fromIterable(() -> ArchiveChunkCodec.decode(appId, chunk.getPayload())))
+                .filter(check -> inRange(check, from, to));
+        return Flux.concat(archived, recent(appId, from, to));
+    }
+
+    /**
+     * Disponibilité sur [from, to) : les lots entièrement dans la période sont comptés
+     * depuis leurs compteurs, sans décodage
+     */
+    public Mono<HistoryUptime> getUptime(Long appId, LocalDateTime from, LocalDateTime to) {
+        Flux<long[]> archived = archiveRepository.findOverlapping(appId, from, to)
+                .concatMap(chunk -> {
+                    if (!chunk.getFirstAt().isBefore(from) && chunk.getLastAt().isBefore(to)) {
+                        return Mono.just(new long[]{chunk.getCheckCount(), chunk.getUpCount(), chunk.getCheckCount(),
+                                chunk.getLatencySumMs(), chunk.getLatencyCount()});
+                    }
+                    return Flux.fromIterable(() -> ArchiveChunkCodec.decode(appId, chunk.getPayload()))
+                            .filter(check -> inRange(check, from, to))
+                            .map(check -> tally(check, 1));
+                });
+        return Flux.concat(archived, recent(appId, from, to).map(check -> tally(check, 0)))
+                .reduceWith(() -> new long[5], HistoryArchiveService::add)
+                .map(sum -> new HistoryUptime(appId, from, to, sum[0], sum[1], sum[2],
+                        sum[0] > 0 ? Math.round(sum[1] * 10000.0 / sum[0]) / 100.0 : null,
+                        sum[4] > 0 ? (double) sum[3] / sum[4] : null));
+    }
+
+    // {checks, UP, archivés, somme des temps de réponse, nombre de temps de réponse}
+    private static long[] tally(StatusCheck check, int archived) {
+        boolean hasLatency = check.getResponseTimeMs() != null;
+        return new long[]{1, Boolean.TRUE.equals(check.getIsUp()) ? 1 : 0, archived,
+                hasLatency ? check.getResponseTimeMs() : 0, hasLatency ? 1 : 0};
+    }
+
+    private static long[] add(long[] sum, long[] part) {
+        for (int i = 0; i < sum.length; i++) {
+            sum[i] += part[i];
+        }
+        return sum;
+    }
+
+    private Flux<StatusCheck> recent(Long appId, LocalDateTime from, LocalDateTime to) {
+        return statusRepository.findHistory(appId, maxHistoryPerApp)
+                .filter(check -> inRange(check, from, to))
+                .collectSortedList(Comparator.comparing(StatusCheck::getCheckedAt))
+                .flatMapIterable(checks -> checks);
+    }
+
+    private static boolean inRange(StatusCheck check, LocalDateTime from, LocalDateTime to) {
+        return !check.getCheckedAt().isBefore(from) && check.getCheckedAt().isBefore(to);
+    }
+
+    public Mono<Void> deleteForApp(Long appId) {
+        return archiveRepository.deleteByAppId(appId);
+    }
+
+    /**
+     * Supprime les lots plus anciens que la rétention de l'archive
+     */
+    @Scheduled(cron = "0 30 3 * * ?")
+    public void purgeExpired() {
+        archiveRepository.deleteOlderThan(LocalDate.now().minusDays(retentionDays))
+                .subscribe(
+                        deleted -> log.info("🗄️ Archive purge: {} daily chunks older than {} days deleted", deleted, retentionDays),
+                        e -> log.error("❌ Archive purge failed: {}", e.getMessage()));
+    }
+}
@@ -0,0 +1,210 @@
+package org.azirar.glenn.handlers;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.azirar.glenn.models.Incident;
+import org.azirar.glenn.models.ReliabilityReport;
+import org.azirar.glenn.models.StatusCheck;
+import org.azirar.glenn.repositories.IncidentRepository;
+import org.azirar.glenn.repositories.StatusStore;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maintient la table des incidents à partir du flux de checks :
+ * un check DOWN ouvre (ou prolonge) l'incident de l'application, le premier check UP le ferme.
+ * Disponibilité, MTTR et MTBF se calculent ensuite sur les intervalles, sans relire les checks.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IncidentService {
+
+    private final IncidentRepository incidentRepository;
+    private final StatusStore statusRepository;
+
+    // Dernier état connu par application : un check UP sans changement n'écrit rien
+    private final Map<Long, Boolean> lastKnownUp = new ConcurrentHashMap<>();
+
+    /**
+     * Applique un check enregistré à la table des incidents et le retourne inchangé.
+     */
+    public Mono<StatusCheck> record(StatusCheck check) {
+        if (check.getAppId() == null) {
+            return Mono.just(check);
+        }
+        boolean isUp = Boolean.TRUE.equals(check.getIsUp());
+        Boolean previous = lastKnownUp.put(check.getAppId(), isUp);
+
+        Mono<Integer> write;
+        if (!isUp) {
+            write = incidentRepository.recordDown(check.getAppId(), check.getCheckedAt(), check.getErrorMessage());
+        } else if (previous == null || !previous) {
+            // État inconnu (redémarrage) ou retour à la normale : on ferme l'incident éventuel
+            write = incidentRepository.closeOpen(check.getAppId(), check.getCheckedAt());
+        } else {
+            return Mono.just(check);
+        }
+        return write
+                .onErrorResume(e -> {
+                    // L'état sera réconcilié au prochain check
+                    lastKnownUp.remove(check.getAppId());
+                    log.warn("⚠️ Incident update failed for app {}: {}", check.getAppId(), e.getMessage());
+                    return Mono.empty();
+                })
+                .thenReturn(check);
+    }
+
+    public Flux<Incident> getTimeline(Long appId, LocalDateTime from, LocalDateTime to) {
+        return incidentRepository.findOverlapping(appId, from, to);
+    }
+
+    public Flux<Incident> getOpenIncidents() {
+        return incidentRepository.findOpen();
+    }
+
+    /**
+     * Disponibilité exacte sur [from, to) : les incidents sont tronqués aux bornes de la période.
+     * MTTR = durée moyenne des incidents terminés ; MTBF = temps UP / nombre d'incidents.
+     */
+    public Mono<ReliabilityReport> getReliability(Long appId, LocalDateTime from, LocalDateTime to) {
+        LocalDateTime end = to.isAfter(LocalDateTime.now()) ? LocalDateTime.now() : to;
+        return incidentRepository.findOverlapping(appId, from, end)
+                .collectList()
+                .map(incidents -> buildReport(appId, from, end, incidents));
+    }
+
+    public Mono<Double> getUptimePercentage(Long appId, int hours) {
+        LocalDateTime now = LocalDateTime.now();
+        return getReliability(appId, now.minusHours(hours), now)
+                .map(ReliabilityReport::uptimePercentage);
+    }
+
+    private ReliabilityReport buildReport(Long appId, LocalDateTime from, LocalDateTime to, List<Incident> incidents) {
+        long periodSeconds = Math.max(0, Duration.between(from, to).toSeconds());
+        long downtime = 0;
+        long repairTotal = 0;
+        int repaired = 0;
+        LocalDateTime downSince = null;
+
+        for (Incident incident : incidents) {
+            LocalDateTime start = incident.getStartedAt().isBefore(from) ? from : incident.getStartedAt();
+            LocalDateTime stop = incident.isOpen() || incident.getEndedAt().isAfter(to) ? to : incident.getEndedAt();
+            downtime += Math.max(0, Duration.between(start, stop).toSeconds());
+
+            if (incident.isOpen()) {
+                downSince = incident.getStartedAt();
+            } else {
+                repairTotal += incident.getDurationSeconds();
+                repaired++;
+            }
+        }
+
+        double uptime = periodSeconds == 0 ? 100.0 : (periodSeconds - downtime) * 100.0 / periodSeconds;
+        Long mttr = repaired == 0 ? null : repairTotal / repaired;
+        Long mtbf = incidents.isEmpty() ? null : (periodSeconds - downtime) / incidents.size();
+        return new ReliabilityReport(appId, from, to, Math.round(uptime * 1000) / 1000.0,
+                downtime, incidents.size(), mttr, mtbf, downSince);
+    }
+
+    // --- RECONSTRUCTION ---
+
+    /**
+     * Reconstruit les incidents de toutes les applications depuis l'historique des checks.
+     * Retourne le nombre d'incidents créés.
+     */
+    public Mono<Long> rebuildAll() {
+        return statusRepository.findDistinctAppIds()
+                .concatMap(this::rebuild)
+                .reduce(0L, Long::sum)
+                .doOnNext(count -> log.info("🧱 Incidents rebuilt from history: {}", count));
+    }
+
+    public Mono<Long> rebuild(Long appId) {
+        Mono<Long> rebuilt = statusRepository.sharesDatabase()
+                ? incidentRepository.rebuildForApp(appId).map(Integer::longValue)
+                : rebuildFromHistory(appId);
+        return incidentRepository.deleteByAppId(appId)
+                .then(rebuilt)
+                // Le prochain check réconcilie l'état avec la table reconstruite
+                .doOnNext(count -> lastKnownUp.remove(appId));
+    }
+
+    /**
+     * Même découpage que rebuildForApp, en mémoire, quand les checks ne sont pas dans la base
+     */
+    private Mono<Long> rebuildFromHistory(Long appId) {
+        return statusRepository.findHistory(appId, Integer.MAX_VALUE)
+                .collectList()
+                .flatMapMany(history -> {
+                    List<Incident> incidents = new ArrayList<>();
+                    Incident current = null;
+                    // Du plus ancien au plus récent
+                    for (int i = history.size() - 1; i >= 0; i--) {
+                        StatusCheck check = history.get(i);
+                        if (Boolean.TRUE.equals(check.getIsUp())) {
+                            if (current != null) {
+                                current.setEndedAt(check.getCheckedAt());
+                                incidents.add(current);
+                                current = null;
+                            }
+                        } else if (current == null) {
+                            current = Incident.builder()
+                                    .appId(appId)
+                                    .startedAt(check.getCheckedAt())
+                                    .firstError(check.getErrorMessage())
+                                    .checkCount(1)
+                                    .lastCheckAt(check.getCheckedAt())
+                                    .build();
+                        } else {
+                            current.setCheckCount(current.getCheckCount() + 1);
+                            current.setLastCheckAt(check.getCheckedAt());
+                        }
+                    }
+                    if (current != null) {
+                        incidents.add(current);
+                    }
+                    return incidentRepository.saveAll(incidents);
+                })
+                .count();
+    }
+
+    /**
+     * Oublie le dernier état connu : le prochain check enregistré ouvre ou ferme l'incident selon la table
+     */
+    public void forget(Long appId) {
+        if (appId != null) {
+            lastKnownUp.remove(appId);
+        }
+    }
+
+    public Mono<Void> deleteForApp(Long appId) {
+        lastKnownUp.remove(appId);
+        return incidentRepository.deleteByAppId(appId);
+    }
+
+    /**
+     * Premier démarrage avec cette table : on la remplit à partir de l'historique existant
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        incidentRepository.count()
+                .filter(count -> count == 0)
+                .flatMap(empty -> statusRepository.countAll())
+                .filter(checks -> checks > 0)
+                .flatMap(checks -> rebuildAll())
+                .subscribe(
+                        count -> { },
+                        e -> log.error("❌ Incident backfill failed: {}", e.getMessage()));
+    }
+}
@@ -2,21 +2,25 @@ package org.azirar.glenn.handlers;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.azirar.glenn.jfr.StatusBatchWriteEvent;
+import org.azirar.glenn.models.ErrorKind;
 import org.azirar.glenn.models.MonitoredApp;
 import org.azirar.glenn.models.StatusCheck;
 import org.azirar.glenn.repositories.MonitoredAppRepository;
-import org.azirar.glenn.repositories.StatusCheckRepository;
+import org.azirar.glenn.repositories.StatusStore;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
+import reactor.core.publisher.Sinks;
+import reactor.util.concurrent.Queues;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 @Slf4j
 @Service
@@ -24,18 +28,41 @@ import java.time.LocalDateTime;
 public class MonitoringService {
 
     private final MonitoredAppRepository appRepository;
-    private final StatusCheckRepository statusRepository;
-    private final WebClient.Builder webClientBuilder;
+    private final StatusStore statusRepository;
+    private final HealthCheckService healthCheckService;
+    private final ProbePlanner probePlanner;
+    private final ProbeCoalescer probeCoalescer;
+    private final DashboardSnapshotService dashboardSnapshotService;
+    private final IncidentService incidentService;
+    private final StartupTimer startupTimer;
+    private final HistoryArchiveService historyArchiveService;
+    private final SloService sloService;
+    private final AppRegistry appRegistry;
+    private final FleetAggregateService fleetAggregateService;
+    private final StatusSpillService statusSpillService;
+
+    // Résultats poussés par les agents distants ou sondés hors tick, fusionnés dans le flux de monitoring
+    private static final int REMOTE_QUEUE_CAPACITY = 10_000;
+    // Profondeur maximale parcourue lors de la détection de cycles de dépendances
+    private static final int MAX_DEPENDENCY_DEPTH = 32;
+    private final Sinks.Many<StatusCheck> remoteResults =
+            Sinks.many().unicast().onBackpressureBuffer(Queues.<StatusCheck>get(REMOTE_QUEUE_CAPACITY).get());
 
     @Value("${monitoring.interval:10000}")
     private long monitoringInterval;
-    @Value("${monitoring.timeout:5000}")
-    private int monitoringTimeout;
+    @Value("${monitoring.persistence.batch-size:100}")
+    private int persistBatchSize;
+    @Value("${monitoring.persistence.batch-timeout:500}")
+    private long persistBatchTimeout;
 
     // --- GESTION DES APPLICATIONS ---
 
     public Flux<MonitoredApp> getAllApps() {
-        return appRepository.findAll();
+        return appRegistry.findAll();
+    }
+
+    public Mono<Integer> countApps() {
+        return appRegistry.count();
     }
 
     public Mono<MonitoredApp> getAppById(Long id) {
@@ -54,18 +81,22 @@ public class MonitoringService {
         }
         app.setUpdatedAt(LocalDateTime.now());
 
-        return appRepository.save(app)
+        return withValidParent(app)
+                .flatMap(appRepository::save)
+                .flatMap(this::refreshRegistry)
                 .flatMap(savedApp ->
                         // On déclenche un check immédiat pour ne pas attendre l'intervalle
-                        performHealthCheck(savedApp)
-                                .flatMap(statusRepository::save)
-                                .thenReturn(savedApp)
-                );
+                        checkNow(savedApp));
     }
 
     public Mono<Void> deleteApp(Long id) {
+        probePlanner.forget(id);
         return statusRepository.deleteByAppId(id)
-                .then(appRepository.deleteById(id));
+                .then(incidentService.deleteForApp(id))
+                .then(historyArchiveService.deleteForApp(id))
+                .then(sloService.deleteForApp(id))
+                .then(appRepository.deleteById(id))
+                .doOnSuccess(done -> appRegistry.remove(id));
     }
 
     public Mono<MonitoredApp> toggleAppActive(Long id) {
@@ -74,140 +105,81 @@ public class MonitoringService {
                     app.setActive(!app.getActive());
                     app.setUpdatedAt(LocalDateTime.now());
                     return appRepository.save(app);
-                });
+                })
+                .flatMap(this::refreshRegistry);
     }
 
-    public Mono<StatusCheck> performHealthCheck(MonitoredApp app) {
-        String url = app.getUrl().toLowerCase().trim();
-
-        if (url.startsWith("http://") || url.startsWith("https://")) {
-            return checkHttp(app);
-        } else {
-            return checkStream(app);
-        }
+    /**
+     * Les modifications locales sont visibles immédiatement, sans attendre la notification du trigger
+     */
+    private Mono<MonitoredApp> refreshRegistry(MonitoredApp savedApp) {
+        return appRegistry.refresh(savedApp.getId()).thenReturn(savedApp);
     }
 
-    private Mono<StatusCheck> checkHttp(MonitoredApp app) {
-        long startTime = System.currentTimeMillis();
-        return webClientBuilder.build()
-                .get()
-                .uri(app.getUrl())
-                .exchangeToMono(response -> {
-                    long duration = System.currentTimeMillis() - startTime;
-                    int statusCode = response.statusCode().value();
-
-                    boolean isUp = app.getAcceptedStatusesList().contains(statusCode);
-
-                    log.debug("App {} - Code: {} - Accepted: {} - isUp: {}",
-                            app.getName(), statusCode, app.getAcceptedStatusesList(), isUp);
-
-                    return Mono.just(buildStatus(app, statusCode, isUp, duration, null));
-                })
-                .timeout(Duration.ofSeconds(5))
-                .onErrorResume(e -> {
-                    long duration = System.currentTimeMillis() - startTime;
-
-                    // Récupérer seulement le message d'erreur sans la stacktrace
-                    String errorMessage = formatErrorMessage(e);
-
-                    // Log simplifié sans stacktrace
-                    log.warn("❌ Health check failed for {}: {}", app.getName(), errorMessage);
-
-                    return Mono.just(buildStatus(app, 0, false, duration, errorMessage));
-                });
+    /**
+     * Sonde l'application et, en mode adaptatif, confirme un premier échec
+     * par des essais rapprochés avant de le considérer comme DOWN.
+     */
+    private Mono<StatusCheck> probeWithConfirmation(MonitoredApp app) {
+        return probeCoalescer.probe(app, 0, healthCheckService::performHealthCheck)
+                .flatMap(check -> confirmFailure(app, check, 1));
     }
 
-    private Mono<StatusCheck> checkStream(MonitoredApp app) {
-        long startTime = System.currentTimeMillis();
-
-        return Mono.fromCallable(() -> {
-                    try {
-                        // Extraction de l'hôte et du port (ex: postgres://localhost:5432)
-                        String cleanUrl = app.getUrl().replaceAll("^[a-zA-Z]+://", "");
-                        String host;
-                        int port;
-
-                        if (cleanUrl.contains(":")) {
-                            String[] parts = cleanUrl.split(":");
-                            host = parts[0];
-                            port = Integer.parseInt(parts[1]);
-                        } else {
-                            host = cleanUrl;
-                            port = 22;
-                        }
-
-                        try (java.net.Socket socket = new java.net.Socket()) {
-                            socket.connect(new java.net.InetSocketAddress(host, port), this.monitoringTimeout);
-                            return true;
-                        }
-                    } catch (Exception e) {
-                        return false;
-                    }
-                })
-                .subscribeOn(Schedulers.boundedElastic())
-                .map(isUp -> {
-                    long duration = System.currentTimeMillis() - startTime;
-                    return StatusCheck.builder()
-                            .appId(app.getId())
-                            .appName(app.getName())
-                            .isUp(isUp)
-                            // CLÉ : On met 200 si la connexion TCP a réussi, sinon 0 ou 503
-                            .statusCode(isUp ? 200 : 0)
-                            .responseTime(duration + "ms")
-                            .checkedAt(LocalDateTime.now())
-                            .errorMessage(isUp ? null : "Stream/Port Unreachable")
-                            .build();
-                });
+    private Mono<StatusCheck> confirmFailure(MonitoredApp app, StatusCheck check, int attempt) {
+        if (!check.getIsUp() && probePlanner.isSuppressed(app)) {
+            // Dépendance amont DOWN : l'échec en découle, inutile de le confirmer
+            check.setError(ErrorKind.UPSTREAM_DOWN, "#" + app.getParentAppId()
+                    + (check.getErrorMessage() != null ? " - " + check.getErrorMessage() : ""));
+            return Mono.just(check);
+        }
+        if (check.getIsUp() || !probePlanner.needsConfirmation(app.getId(), attempt)) {
+            return Mono.just(check);
+        }
+        log.debug("🔁 Confirming failure for {} (attempt {})", app.getName(), attempt);
+        return Mono.delay(probePlanner.confirmationDelay(attempt))
+                .then(Mono.defer(() -> probeCoalescer.probe(app, attempt, healthCheckService::performHealthCheck)))
+                .flatMap(retry -> confirmFailure(app, retry, attempt + 1));
     }
 
-    private String formatErrorMessage(Throwable e) {
-        if (e == null) return "Unknown error";
-
-        String msg = e.getMessage();
-        String className = e.getClass().getSimpleName();
-
-        // Mapping des erreurs courantes vers des messages lisibles
-        if (e instanceof javax.net.ssl.SSLHandshakeException) {
-            if (msg != null && msg.contains("unrecognized_name")) {
-                return "SSL Error: Server name not recognized (SNI issue)";
-            }
-            return "SSL Handshake failed: " + (msg != null ? msg : "Unknown SSL error");
-        } else if (e instanceof java.util.concurrent.TimeoutException) {
-            return "Connection timeout after 5 seconds";
-        } else if (e instanceof io.netty.channel.ConnectTimeoutException) {
-            return "Connection timeout: Server unreachable";
-        } else if (className.contains("ConnectException") ||
-                (msg != null && msg.contains("Connection refused"))) {
-            return "Connection refused: Server is down or port closed";
-        } else if (e instanceof org.springframework.web.reactive.function.client.WebClientRequestException) {
-            // Extraire la cause racine si possible
-            Throwable cause = e.getCause();
-            if (cause != null) {
-                String causeMsg = cause.getMessage();
-                if (causeMsg != null && causeMsg.contains("Connection refused")) {
-                    return "Connection refused: Server is down or port closed";
-                }
-                return "Request failed: " + causeMsg;
-            }
-            return "Request failed: " + (msg != null ? msg : "Unknown request error");
-        } else if (e instanceof java.net.ConnectException) {
-            return "Connection refused: " + (msg != null ? msg : "Server unreachable");
+    /**
+     * Check immédiat après création ou modification. Une application sondée par un agent
+     * distant attend le prochain envoi de l'agent : le nœud central ne la voit pas forcément.
+     */
+    private Mono<MonitoredApp> checkNow(MonitoredApp savedApp) {
+        if (savedApp.hasProbeLocation()) {
+            return Mono.just(savedApp);
         }
-
-        // Pour toutes les autres erreurs, prendre juste le message ou le nom de la classe
-        return "Error: " + (msg != null ? msg : className);
+        return healthCheckService.performHealthCheck(savedApp)
+                // Même chemin que le flux principal : journal local si la base est indisponible
+                .flatMap(check -> saveBatch(List.of(check)).next())
+                .flatMap(this::recordIncident)
+                .doOnNext(probePlanner::record)
+                .doOnNext(dashboardSnapshotService::onStatusCheck)
+                .doOnNext(fleetAggregateService::record)
+                .doOnNext(sloService::record)
+                .thenReturn(savedApp);
     }
 
-    private StatusCheck buildStatus(MonitoredApp app, int code, boolean isUp, long ms, String error) {
-        return StatusCheck.builder()
-                .appId(app.getId())
-                .appName(app.getName())
-                .statusCode(code)
-                .isUp(isUp)
-                .responseTime(ms + "ms")
-                .errorMessage(error)
-                .checkedAt(LocalDateTime.now())
-                .build();
+    /**
+     * Refuse une dépendance qui formerait un cycle (A dépend de B qui dépend de A) :
+     * le lien est retiré plutôt que de bloquer l'enregistrement.
+     */
+    private Mono<MonitoredApp> withValidParent(MonitoredApp app) {
+        Long parentId = app.getParentAppId();
+        if (parentId == null || app.getId() == null) {
+            return Mono.just(app);
+        }
+        return Mono.just(parentId)
+                .expand(id -> appRegistry.findById(id).mapNotNull(MonitoredApp::getParentAppId))
+                .take(MAX_DEPENDENCY_DEPTH)
+                .any(id -> id.equals(app.getId()))
+                .map(cycle -> {
+                    if (cycle) {
+                        log.warn("⚠️ Dependency cycle on {} via app #{} - parent link ignored", app.getName(), parentId);
+                        app.setParentAppId(null);
+                    }
+                    return app;
+                });
     }
 
     public Flux<StatusCheck> getLatestStatuses() {
@@ -215,18 +187,12 @@ public class MonitoringService {
     }
 
     public Flux<StatusCheck> getAppHistory(Long appId) {
-        return statusRepository.findTop5000ByAppIdOrderByCheckedAtDesc(appId);
+        return statusRepository.findHistory(appId, 5000);
     }
 
     public Mono<Double> getUptimePercentage(Long appId, int hours) {
-        LocalDateTime cutoff = LocalDateTime.now().minusHours(hours);
-        return statusRepository.findByAppIdAndCheckedAtAfter(appId, cutoff)
-                .collectList()
-                .map(checks -> {
-                    if (checks.isEmpty()) return 100.0;
-                    long upCount = checks.stream().filter(StatusCheck::getIsUp).count();
-                    return (upCount * 100.0) / checks.size();
-                });
+        // Calculée sur les intervalles d'incident plutôt qu'en relisant chaque check
+        return incidentService.getUptimePercentage(appId, hours);
     }
 
     private Flux<StatusCheck> monitoringFlux;
@@ -244,11 +210,31 @@ public class MonitoringService {
             return monitoringFlux;
         }
 
-        monitoringFlux = Flux.interval(Duration.ofMillis(monitoringInterval))
-                .flatMap(tick -> appRepository.findAll())
+        // Premier tick immédiat : on n'attend pas un intervalle complet après un redémarrage
+        monitoringFlux = Flux.interval(Duration.ZERO, Duration.ofMillis(monitoringInterval))
+                .doOnNext(tick -> probeCoalescer.newCycle())
+                // Registre tenu à jour par LISTEN/NOTIFY : pas de relecture de la table à chaque tick
+                .flatMap(tick -> appRegistry.findAll())
                 .filter(MonitoredApp::getActive)
-                .flatMap(this::performHealthCheck)
-                .flatMap(statusRepository::save)
+                // Les applications rattachées à un emplacement sont sondées par les agents
+                .filter(app -> !app.hasProbeLocation())
+                // Réservée jusqu'à l'enregistrement du résultat : une sonde lente n'est pas relancée au tick suivant
+                .filter(probePlanner::claim)
+                .flatMap(app -> probeWithConfirmation(app)
+                        .switchIfEmpty(Mono.fromRunnable(() -> probePlanner.release(app.getId())))
+                        .doOnError(e -> probePlanner.release(app.getId()))
+                        .doOnCancel(() -> probePlanner.release(app.getId())))
+                .doOnNext(startupTimer::onProbe)
+                .mergeWith(remoteResults.asFlux())
+                // Écriture par lots plutôt qu'un INSERT isolé par sonde
+                .bufferTimeout(persistBatchSize, Duration.ofMillis(persistBatchTimeout))
+                .concatMap(this::saveBatch)
+                // Ouverture / fermeture des incidents sur les transitions UP/DOWN
+                .concatMap(this::recordIncident)
+                .doOnNext(probePlanner::record)
+                .doOnNext(dashboardSnapshotService::onStatusCheck)
+                .doOnNext(fleetAggregateService::record)
+                .doOnNext(sloService::record)
                 .doOnNext(statusCheck -> {
                     if (statusCheck.getIsUp()) {
                         log.info("✅ {} is UP (HTTP {})", statusCheck.getAppName(), statusCheck.getStatusCode());
@@ -262,8 +248,84 @@ public class MonitoringService {
         return monitoringFlux;
     }
 
+    /**
+     * Injecte les résultats reçus d'un agent dans le flux de monitoring (persistance, incidents,
+     * dashboard et live-status). Retourne le nombre de checks acceptés : la suite est refusée si la file est pleine.
+     */
+    public synchronized int ingestRemoteResults(List<StatusCheck> checks) {
+        int accepted = 0;
+        for (StatusCheck check : checks) {
+            if (remoteResults.tryEmitNext(check).isFailure()) {
+                log.warn("⚠️ Remote result queue full, {} checks refused", checks.size() - accepted);
+                break;
+            }
+            accepted++;
+        }
+        return accepted;
+    }
+
+    /**
+     * Première sonde d'applications importées, chacune après un délai aléatoire dans l'intervalle
+     * de base : le lot est réparti sur l'intervalle au lieu d'être sondé en rafale aux ticks suivants.
+     * Les résultats rejoignent le flux de monitoring comme ceux des agents.
+     */
+    public void scheduleFirstProbes(Collection<Long> appIds) {
+        for (Long appId : appIds) {
+            long delay = probePlanner.randomFirstProbeDelay();
+            probePlanner.scheduleFirstProbe(appId, delay);
+            Mono.delay(Duration.ofMillis(delay))
+                    .then(Mono.defer(() -> appRegistry.findById(appId)))
+                    .filter(app -> Boolean.TRUE.equals(app.getActive()) && !app.hasProbeLocation())
+                    .flatMap(this::probeWithConfirmation)
+                    .subscribe(this::emitOffTick,
+                            e -> log.warn("⚠️ First probe of app #{} failed: {}", appId, e.getMessage()));
+        }
+    }
+
+    private synchronized void emitOffTick(StatusCheck check) {
+        if (remoteResults.tryEmitNext(check).isFailure()) {
+            log.warn("⚠️ Result queue full, first probe of {} dropped", check.getAppName());
+        }
+    }
+
+    /**
+     * Incidents bornés par le même délai que l'écriture des checks. Tant que le journal local
+     * n'est pas vide, le check y attend : la relecture applique ses incidents dans l'ordre.
+     */
+    private Mono<StatusCheck> recordIncident(StatusCheck check) {
+        if (statusSpillService.isSpilling()) {
+            return Mono.just(check);
+        }
+        return incidentService.record(check)
+                .timeout(statusSpillService.writeTimeout())
+                .onErrorResume(e -> {
+                    incidentService.forget(check.getAppId());
+                    log.warn("⚠️ Incident update skipped for app {}: {}", check.getAppId(), e.getMessage());
+                    return Mono.just(check);
+                });
+    }
+
+    /**
+     * Écrit le lot en base ; en cas d'échec ou de lenteur, il part dans le journal local.
+     * Ne propage jamais d'erreur : le flux partagé (et le live-status) doit survivre à une panne de la base.
+     */
+    private Flux<StatusCheck> saveBatch(List<StatusCheck> batch) {
+        // Des checks attendent déjà sur disque : on passe derrière eux pour garder l'ordre par application
+        if (statusSpillService.isSpilling()) {
+            return statusSpillService.spill(batch, null);
+        }
+        StatusBatchWriteEvent event = StatusBatchWriteEvent.begin(batch.size());
+        return statusRepository.saveAll(batch)
+                .collectList()
+                .timeout(statusSpillService.writeTimeout())
+                .doOnSuccess(saved -> event.complete(true))
+                .doOnError(e -> event.complete(false))
+                .flatMapIterable(saved -> saved)
+                .onErrorResume(e -> statusSpillService.spill(batch, e));
+    }
+
     public Flux<String> getDistinctCategories() {
-        return appRepository.findAll()
+        return appRegistry.findAll()
                 .map(app -> app.getCategory() == null || app.getCategory().isBlank()
                         ? "Uncategorized"
                         : app.getCategory())
@@ -281,16 +343,20 @@ public class MonitoringService {
                     existingApp.setCategory(updatedApp.getCategory());
                     existingApp.setDescription(updatedApp.getDescription());
                     existingApp.setAcceptedStatuses(updatedApp.getAcceptedStatuses());
+                    existingApp.setBodyAssertionType(updatedApp.getBodyAssertionType());
+                    existingApp.setBodyAssertionValue(updatedApp.getBodyAssertionValue());
+                    existingApp.setBodyAssertionExpected(updatedApp.getBodyAssertionExpected());
+                    existingApp.setMaxBodyBytes(updatedApp.getMaxBodyBytes());
+                    existingApp.setProbeLocation(updatedApp.getProbeLocation());
+                    existingApp.setParentAppId(updatedApp.getParentAppId());
                     existingApp.setUpdatedAt(LocalDateTime.now()); //
 
-                    return appRepository.save(existingApp); // Sauvegarde en base
+                    return withValidParent(existingApp).flatMap(appRepository::save); // Sauvegarde en base
                 })
+                .flatMap(this::refreshRegistry)
                 .flatMap(savedApp ->
                         // On lance un check immédiat pour valider la nouvelle URL
-                        performHealthCheck(savedApp)
-                                .flatMap(statusRepository::save)
-                                .thenReturn(savedApp)
-                );
+                        checkNow(savedApp));
     }
 
     // Dans MonitoringService.java
@@ -303,11 +369,9 @@ public class MonitoringService {
         }
         app.setUpdatedAt(LocalDateTime.now());
 
-        return appRepository.save(app)
-                .flatMap(savedApp ->
-                        performHealthCheck(savedApp)
-                                .flatMap(statusRepository::save)
-                                .thenReturn(savedApp)
-                );
+        return withValidParent(app)
+                .flatMap(appRepository::save)
+                .flatMap(this::refreshRegistry)
+                .flatMap(this::checkNow);
     }
 }
\ No newline at end of file
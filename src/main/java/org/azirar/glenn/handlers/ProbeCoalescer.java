@@ -0,0 +1,111 @@
+package org.azirar.glenn.handlers;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.azirar.glenn.models.MonitoredApp;
+import org.azirar.glenn.models.StatusCheck;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Dédoublonne les sondes des applications qui pointent vers la même cible.
+ * Pendant un cycle de monitoring, une seule sonde part par cible normalisée
+ * (et par réglages de sonde) ; son résultat est recopié pour chaque application.
+ */
+@Slf4j
+@Component
+public class ProbeCoalescer {
+
+    private final Counter executedCounter;
+    private final Counter coalescedCounter;
+
+    private volatile Map<String, Mono<StatusCheck>> cycleProbes = new ConcurrentHashMap<>();
+
+    public ProbeCoalescer(MeterRegistry meterRegistry) {
+        this.executedCounter = Counter.builder("glenn.probes.executed")
+                .description("Sondes réellement envoyées")
+                .register(meterRegistry);
+        this.coalescedCounter = Counter.builder("glenn.probes.coalesced")
+                .description("Sondes économisées grâce au dédoublonnage")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Démarre un nouveau cycle : les résultats du cycle précédent ne sont plus partagés
+     */
+    public void newCycle() {
+        cycleProbes = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Sonde l'application, ou réutilise la sonde déjà lancée pour la même cible dans ce cycle.
+     * {@code attempt} distingue les essais de confirmation, qui ne doivent pas réutiliser l'échec initial.
+     */
+    public Mono<StatusCheck> probe(MonitoredApp app, int attempt, Function<MonitoredApp, Mono<StatusCheck>> prober) {
+        String key = keyOf(app) + "#" + attempt;
+        AtomicBoolean leader = new AtomicBoolean();
+        Mono<StatusCheck> shared = cycleProbes.computeIfAbsent(key, k -> {
+            leader.set(true);
+            return prober.apply(app).cache();
+        });
+
+        if (leader.get()) {
+            executedCounter.increment();
+        } else {
+            coalescedCounter.increment();
+            log.debug("🔗 Probe for {} shared with another app targeting {}", app.getName(), key);
+        }
+        // Chaque application reçoit sa propre ligne StatusCheck
+        return shared.map(check -> check.toBuilder()
+                .id(null)
+                .appId(app.getId())
+                .appName(app.getName())
+                .build());
+    }
+
+    /**
+     * Clé de dédoublonnage : cible normalisée + réglages influençant le résultat
+     */
+    String keyOf(MonitoredApp app) {
+        String url = app.getUrl().trim();
+        String target;
+        try {
+            URI uri = URI.create(url);
+            String scheme = uri.getScheme() == null ? "" : uri.getScheme().toLowerCase(Locale.ROOT);
+            String host = uri.getHost() == null ? "" : uri.getHost().toLowerCase(Locale.ROOT);
+            int port = uri.getPort() != -1 ? uri.getPort() : defaultPort(scheme);
+            if ("http".equals(scheme) || "https".equals(scheme)) {
+                String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+                String query = uri.getRawQuery() == null ? "" : "?" + uri.getRawQuery();
+                target = scheme + "://" + host + ":" + port + path + query
+                        + "|" + app.getAcceptedStatusesList().stream().sorted().toList();
+                if (app.hasBodyAssertion()) {
+                    target += "|" + app.getBodyAssertionType() + ":" + app.getBodyAssertionValue()
+                            + "=" + app.getBodyAssertionExpected() + "/" + app.getMaxBodyBytes();
+                }
+            } else {
+                // Sonde TCP : seuls l'hôte et le port comptent
+                target = "tcp://" + host + ":" + port;
+            }
+        } catch (IllegalArgumentException e) {
+            target = url.toLowerCase(Locale.ROOT) + "|" + app.getAcceptedStatuses();
+        }
+        return target;
+    }
+
+    private static int defaultPort(String scheme) {
+        return switch (scheme) {
+            case "http" -> 80;
+            case "https" -> 443;
+            default -> 22;
+        };
+    }
+}
@@ -0,0 +1,203 @@
+package org.azirar.glenn.handlers;
+
+import lombok.extern.slf4j.Slf4j;
+import org.azirar.glenn.models.MonitoredApp;
+import org.azirar.glenn.models.StatusCheck;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Décide, à chaque tick de monitoring, quelles applications doivent être sondées.
+ * En mode adaptatif, une application stable depuis longtemps voit son intervalle
+ * doubler jusqu'à un plafond, et revient à l'intervalle normal dès le premier échec.
+ * Une application dont la dépendance amont est DOWN passe en cadence « suspendue »
+ * jusqu'au rétablissement de celle-ci.
+ */
+@Slf4j
+@Component
+public class ProbePlanner {
+
+    @Value("${monitoring.interval:10000}")
+    private long baseInterval;
+
+    @Value("${monitoring.adaptive.enabled:false}")
+    private boolean adaptiveEnabled;
+
+    @Value("${monitoring.adaptive.max-interval:300000}")
+    private long maxInterval;
+
+    @Value("${monitoring.adaptive.stable-checks:10}")
+    private int stableChecks;
+
+    @Value("${monitoring.adaptive.confirm-retries:2}")
+    private int confirmRetries;
+
+    @Value("${monitoring.adaptive.confirm-backoff:1000}")
+    private long confirmBackoff;
+
+    @Value("${monitoring.dependencies.suppressed-interval:300000}")
+    private long suppressedInterval;
+
+    private final Map<Long, ProbeState> states = new ConcurrentHashMap<>();
+    private final Set<Long> downApps = ConcurrentHashMap.newKeySet();
+    // Sondes lancées par un tick et pas encore enregistrées : le tick suivant ne les relance pas
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Indique si l'application doit être sondée à ce tick.
+     * Une application jamais vue est toujours due, sauf si sa sonde est encore en cours.
+     */
+    public boolean isDue(MonitoredApp app) {
+        if (inFlight.contains(app.getId())) {
+            return false;
+        }
+        ProbeState state = states.get(app.getId());
+        if (state == null) {
+            return true;
+        }
+        // Tolérance d'un demi-tick pour ne pas décaler la cadence d'un intervalle complet
+        long now = System.currentTimeMillis();
+        if (isSuppressed(app)) {
+            return now >= state.lastProbeAt + suppressedInterval - baseInterval / 2;
+        }
+        return now >= state.nextProbeAt - baseInterval / 2;
+    }
+
+    /**
+     * Réserve l'application pour ce tick si elle est due ; la réservation est levée par
+     * {@link #record} ou par {@link #release} si la sonde ne produit pas de résultat.
+     */
+    public boolean claim(MonitoredApp app) {
+        return isDue(app) && inFlight.add(app.getId());
+    }
+
+    public void release(Long appId) {
+        inFlight.remove(appId);
+    }
+
+    /**
+     * Indique si la dépendance amont de l'application est actuellement DOWN :
+     * ses sondes sont espacées, ses échecs ne sont pas confirmés et ses alertes sont regroupées.
+     */
+    public boolean isSuppressed(MonitoredApp app) {
+        return app.getParentAppId() != null && downApps.contains(app.getParentAppId());
+    }
+
+    /**
+     * Indique si un échec doit être confirmé par un nouvel essai avant d'être enregistré.
+     * Seul le premier échec après un état UP (ou inconnu) est confirmé.
+     */
+    public boolean needsConfirmation(Long appId, int attempt) {
+        if (!adaptiveEnabled || attempt > confirmRetries) {
+            return false;
+        }
+        ProbeState state = states.get(appId);
+        return state == null || state.lastUp;
+    }
+
+    /**
+     * Délai avant le n-ième essai de confirmation (backoff exponentiel).
+     */
+    public Duration confirmationDelay(int attempt) {
+        return Duration.ofMillis(confirmBackoff * (1L << Math.max(0, attempt - 1)));
+    }
+
+    /**
+     * Met à jour la cadence de l'application à partir du résultat enregistré.
+     */
+    public void record(StatusCheck check) {
+        if (check.getAppId() == null) {
+            return;
+        }
+        inFlight.remove(check.getAppId());
+        boolean isUp = Boolean.TRUE.equals(check.getIsUp());
+        if (isUp ? downApps.remove(check.getAppId()) : downApps.add(check.getAppId())) {
+            log.debug("{} App {} {} - dependants {}", isUp ? "▶️" : "⏸️", check.getAppId(),
+                    isUp ? "UP" : "DOWN", isUp ? "resumed" : "suppressed");
+        }
+        states.compute(check.getAppId(), (appId, state) -> {
+            ProbeState next = state != null ? state : new ProbeState(baseInterval);
+            next.update(isUp);
+            return next;
+        });
+    }
+
+    /**
+     * Écarte des ticks une application importée dont la première sonde part dans {@code delayMillis} :
+     * le tick ne la reprend qu'un intervalle plus tard, si cette sonde n'a pas eu lieu.
+     */
+    public void scheduleFirstProbe(Long appId, long delayMillis) {
+        ProbeState state = new ProbeState(baseInterval);
+        state.nextProbeAt = System.currentTimeMillis() + delayMillis + baseInterval;
+        states.putIfAbsent(appId, state);
+    }
+
+    /**
+     * Délai aléatoire dans [0, intervalle de base) pour étaler les premières sondes.
+     */
+    public long randomFirstProbeDelay() {
+        return ThreadLocalRandom.current().nextLong(Math.max(1, baseInterval));
+    }
+
+    /**
+     * Oublie l'état d'une application (suppression).
+     */
+    public void forget(Long appId) {
+        states.remove(appId);
+        downApps.remove(appId);
+        inFlight.remove(appId);
+    }
+
+    /**
+     * Applications supprimées ailleurs (autre instance, script) : leur état est oublié
+     */
+    @EventListener
+    public void onAppsChanged(AppRegistry.AppsChanged changes) {
+        changes.removed().forEach(this::forget);
+    }
+
+    public long getCurrentInterval(Long appId) {
+        ProbeState state = states.get(appId);
+        return state != null ? state.interval : baseInterval;
+    }
+
+    private final class ProbeState {
+        private long interval;
+        private int consecutiveUp;
+        private boolean lastUp = true;
+        private long nextProbeAt;
+        private long lastProbeAt;
+
+        private ProbeState(long interval) {
+            this.interval = interval;
+        }
+
+        private void update(boolean isUp) {
+            if (isUp) {
+                if (!lastUp) {
+                    // Retour à la normale : on reprend la cadence de base
+                    consecutiveUp = 0;
+                    interval = baseInterval;
+                }
+                consecutiveUp++;
+                if (adaptiveEnabled && consecutiveUp >= stableChecks && interval < maxInterval) {
+                    interval = Math.min(interval * 2, maxInterval);
+                    consecutiveUp = 0;
+                }
+            } else {
+                consecutiveUp = 0;
+                interval = baseInterval;
+            }
+            lastUp = isUp;
+            lastProbeAt = System.currentTimeMillis();
+            nextProbeAt = lastProbeAt + interval;
+        }
+    }
+}
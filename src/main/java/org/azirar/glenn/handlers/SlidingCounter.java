@@ -0,0 +1,67 @@
+package org.azirar.glenn.handlers;
+
+/**
+ * Compteur bons / total sur une fenêtre glissante découpée en buckets (anneau de taille fixe).
+ * Ajout et lecture en O(1) amorti : les buckets sortis de la fenêtre sont retranchés des totaux
+ * au moment où le temps avance. Mémoire constante, quel que soit le nombre de checks.
+ * Non synchronisé : l'appelant sérialise les accès.
+ */
+final class SlidingCounter {
+
+    private final long bucketMillis;
+    private final int[] good;
+    private final int[] total;
+    private long goodSum;
+    private long totalSum;
+    private long head = Long.MIN_VALUE; // Bucket absolu le plus récent
+
+    SlidingCounter(long bucketMillis, int buckets) {
+        this.bucketMillis = bucketMillis;
+        this.good = new int[buckets];
+        this.total = new int[buckets];
+    }
+
+    void record(long timeMillis, boolean ok) {
+        long bucket = Math.floorDiv(timeMillis, bucketMillis);
+        advance(bucket);
+        if (bucket <= head - total.length) {
+            return; // Hors fenêtre
+        }
+        int i = (int) Math.floorMod(bucket, (long) total.length);
+        total[i]++;
+        totalSum++;
+        if (ok) {
+            good[i]++;
+            goodSum++;
+        }
+    }
+
+    long good(long nowMillis) {
+        advance(Math.floorDiv(nowMillis, bucketMillis));
+        return goodSum;
+    }
+
+    long total(long nowMillis) {
+        advance(Math.floorDiv(nowMillis, bucketMillis));
+        return totalSum;
+    }
+
+    private void advance(long bucket) {
+        if (head == Long.MIN_VALUE) {
+            head = bucket;
+            return;
+        }
+        if (bucket <= head) {
+            return;
+        }
+        long steps = Math.min(bucket - head, total.length);
+        for (long b = head + 1; b <= head + steps; b++) {
+            int i = (int) Math.floorMod(b, (long) total.length);
+            goodSum -= good[i];
+            totalSum -= total[i];
+            good[i] = 0;
+            total[i] = 0;
+        }
+        head = bucket;
+    }
+}
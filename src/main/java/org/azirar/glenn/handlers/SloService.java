@@ -0,0 +1,300 @@
+package org.azirar.glenn.handlers;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.azirar.glenn.models.BurnAlert;
+import org.azirar.glenn.models.MonitoredApp;
+import org.azirar.glenn.models.OutboundNotification;
+import org.azirar.glenn.models.SloDefinition;
+import org.azirar.glenn.models.SloStatus;
+import org.azirar.glenn.models.StatusCheck;
+import org.azirar.glenn.repositories.OutboundNotificationRepository;
+import org.azirar.glenn.repositories.SloDefinitionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Évaluation continue des SLO : chaque check alimente en O(1) des compteurs glissants
+ * (5 min, 30 min, 1 h, 6 h et la fenêtre du SLO), sans relire l'historique.
+ * <p>
+ * Alertes multi-fenêtres sur le taux de consommation du budget d'erreur : PAGE si les fenêtres
+ * 1 h et 5 min dépassent {@code slo.burn.page-threshold}, TICKET si 6 h et 30 min dépassent
+ * {@code slo.burn.ticket-threshold}. La fenêtre courte évite d'alerter sur une panne déjà terminée.
+ * Les alertes passent par la file des notifications, vers le webhook de l'application.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SloService {
+
+    private static final long MINUTE = 60_000;
+    private static final long HOUR = 60 * MINUTE;
+    private static final int MAX_WINDOW_DAYS = 90;
+
+    private final SloDefinitionRepository sloRepository;
+    private final AppRegistry appRegistry;
+    private final OutboundNotificationRepository outboxRepository;
+    private final HistoryArchiveService historyArchiveService;
+
+    // SLO actifs, et leur index par application pour le chemin chaud
+    private final Map<Long, SloState> states = new ConcurrentHashMap<>();
+    private final Map<Long, List<SloState>> byApp = new ConcurrentHashMap<>();
+
+    @Value("${slo.burn.page-threshold:14.4}")
+    private double pageThreshold;
+
+    @Value("${slo.burn.ticket-threshold:6}")
+    private double ticketThreshold;
+
+    /**
+     * Charge les SLO actifs ; leurs compteurs sont amorcés une fois depuis l'historique (archive comprise)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadDefinitions() {
+        sloRepository.findByActiveTrue()
+                .concatMap(this::register)
+                .count()
+                .subscribe(
+                        count -> log.info("🎯 {} SLOs loaded", count),
+                        e -> log.error("❌ Failed to load SLOs: {}", e.getMessage()));
+    }
+
+    /**
+     * Comptabilise un check enregistré dans les SLO de son application
+     */
+    public void record(StatusCheck check) {
+        List<SloState> slos = byApp.get(check.getAppId());
+        if (slos == null || check.getCheckedAt() == null) {
+            return;
+        }
+        long time = toMillis(check.getCheckedAt());
+        for (SloState state : slos) {
+            state.record(time, state.definition.isGood(check));
+        }
+    }
+
+    // --- ÉVALUATION ---
+
+    @Scheduled(fixedRateString = "${slo.evaluation-interval:60000}")
+    public void evaluate() {
+        long now = System.currentTimeMillis();
+        Flux.fromIterable(states.values())
+                .concatMap(state -> {
+                    BurnAlert previous = state.alert;
+                    BurnAlert next = alertLevel(state.status(now));
+                    state.alert = next;
+                    // Notifie une aggravation ou le retour à la normale, pas le passage PAGE -> TICKET
+                    if (next.compareTo(previous) > 0 || (next == BurnAlert.NONE && previous != BurnAlert.NONE)) {
+                        return notify(state.definition, state.status(now), previous);
+                    }
+                    return Mono.empty();
+                })
+                .subscribe(
+                        done -> { },
+                        e -> log.error("❌ SLO evaluation failed: {}", e.getMessage()));
+    }
+
+    private BurnAlert alertLevel(SloStatus status) {
+        if (status.burnRate1h() >= pageThreshold && status.burnRate5m() >= pageThreshold) {
+            return BurnAlert.PAGE;
+        }
+        if (status.burnRate6h() >= ticketThreshold && status.burnRate30m() >= ticketThreshold) {
+            return BurnAlert.TICKET;
+        }
+        return BurnAlert.NONE;
+    }
+
+    private Mono<Void> notify(SloDefinition slo, SloStatus status, BurnAlert previous) {
+        return appRegistry.findById(slo.getAppId())
+                .filter(app -> app.getWebhookUrl() != null && !app.getWebhookUrl().isBlank())
+                .flatMap(app -> {
+                    LocalDateTime now = LocalDateTime.now();
+                    boolean resolved = status.alert() == BurnAlert.NONE;
+                    log.info("🎯 SLO \"{}\" of {}: {} -> {}", slo.getName(), app.getName(), previous, status.alert());
+                    return outboxRepository.save(OutboundNotification.builder()
+                            .appId(app.getId())
+                            .webhookUrl(app.getWebhookUrl())
+                            .isUp(resolved)
+                            .message(formatMessage(app, slo, status))
+                            .nextAttemptAt(now)
+                            .createdAt(now)
+                            .build());
+                })
+                .then()
+                .onErrorResume(e -> {
+                    log.error("❌ SLO alert for \"{}\" not queued: {}", slo.getName(), e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private String formatMessage(MonitoredApp app, SloDefinition slo, SloStatus status) {
+        String budget = status.budgetRemaining() != null
+                ? String.format("%.1f%%", status.budgetRemaining() * 100) : "N/A";
+        if (status.alert() == BurnAlert.NONE) {
+            return String.format("✅ **%s** SLO \"%s\" burn rate back to normal\n" +
+                            "> 💰 Error budget remaining: %s",
+                    app.getName(), slo.getName(), budget);
+        }
+        boolean page = status.alert() == BurnAlert.PAGE;
+        return String.format("🔥 **%s** SLO \"%s\" is burning its error budget (%s)\n" +
+                        "> 🎯 Objective: %s%% over %d days\n" +
+                        "> 📉 Burn rate: %.1fx (%s) / %.1fx (%s)\n" +
+                        "> 💰 Error budget remaining: %s",
+                app.getName(), slo.getName(), status.alert(),
+                slo.getObjective(), slo.getWindowDays(),
+                page ? status.burnRate1h() : status.burnRate6h(), page ? "1h" : "6h",
+                page ? status.burnRate5m() : status.burnRate30m(), page ? "5m" : "30m",
+                budget);
+    }
+
+    // --- API ---
+
+    public Flux<SloStatus> getStatuses(Long appId) {
+        long now = System.currentTimeMillis();
+        List<SloState> selected = appId != null ? byApp.getOrDefault(appId, List.of()) : List.copyOf(states.values());
+        return Flux.fromIterable(selected).map(state -> state.status(now));
+    }
+
+    public Mono<SloStatus> getStatus(Long id) {
+        return Mono.justOrEmpty(states.get(id)).map(state -> state.status(System.currentTimeMillis()));
+    }
+
+    public Mono<SloDefinition> getDefinition(Long id) {
+        return sloRepository.findById(id);
+    }
+
+    public Mono<SloDefinition> save(SloDefinition slo) {
+        return Mono.fromCallable(() -> validate(slo))
+                .flatMap(valid -> {
+                    if (valid.getId() == null) {
+                        valid.setCreatedAt(LocalDateTime.now());
+                    }
+                    return sloRepository.save(valid);
+                })
+                .flatMap(saved -> {
+                    unregister(saved.getId());
+                    return Boolean.TRUE.equals(saved.getActive()) ? register(saved).thenReturn(saved) : Mono.just(saved);
+                });
+    }
+
+    public Mono<Void> delete(Long id) {
+        unregister(id);
+        return sloRepository.deleteById(id);
+    }
+
+    public Mono<Void> deleteForApp(Long appId) {
+        List<SloState> slos = byApp.remove(appId);
+        if (slos != null) {
+            slos.forEach(state -> states.remove(state.definition.getId()));
+        }
+        return sloRepository.deleteByAppId(appId);
+    }
+
+    private SloDefinition validate(SloDefinition slo) {
+        if (slo.getAppId() == null) {
+            throw new IllegalArgumentException("appId is required");
+        }
+        if (slo.getName() == null || slo.getName().isBlank()) {
+            throw new IllegalArgumentException("name is required");
+        }
+        if (slo.getObjective() == null || slo.getObjective() <= 0 || slo.getObjective() >= 100) {
+            throw new IllegalArgumentException("objective must be a percentage strictly between 0 and 100");
+        }
+        if (slo.getWindowDays() == null) {
+            slo.setWindowDays(30);
+        }
+        if (slo.getWindowDays() < 1 || slo.getWindowDays() > MAX_WINDOW_DAYS) {
+            throw new IllegalArgumentException("windowDays must be between 1 and " + MAX_WINDOW_DAYS);
+        }
+        if (slo.getLatencyThresholdMs() != null && slo.getLatencyThresholdMs() <= 0) {
+            throw new IllegalArgumentException("latencyThresholdMs must be positive");
+        }
+        if (slo.getActive() == null) {
+            slo.setActive(true);
+        }
+        return slo;
+    }
+
+    private Mono<SloState> register(SloDefinition slo) {
+        SloState state = new SloState(slo);
+        LocalDateTime now = LocalDateTime.now();
+        // Amorçage avant publication : le flux live ne compte que les checks suivants
+        return historyArchiveService.getHistory(slo.getAppId(), now.minusDays(slo.getWindowDays()), now)
+                .doOnNext(check -> state.record(toMillis(check.getCheckedAt()), slo.isGood(check)))
+                .then(Mono.fromCallable(() -> {
+                    states.put(slo.getId(), state);
+                    byApp.computeIfAbsent(slo.getAppId(), id -> new CopyOnWriteArrayList<>()).add(state);
+                    return state;
+                }));
+    }
+
+    private void unregister(Long id) {
+        SloState state = states.remove(id);
+        if (state != null) {
+            List<SloState> slos = byApp.get(state.definition.getAppId());
+            if (slos != null) {
+                slos.remove(state);
+            }
+        }
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Compteurs d'un SLO : mémoire fixe (fenêtre du SLO en buckets d'une heure)
+     */
+    private static final class SloState {
+        private final SloDefinition definition;
+        private final SlidingCounter last5m = new SlidingCounter(MINUTE, 5);
+        private final SlidingCounter last30m = new SlidingCounter(MINUTE, 30);
+        private final SlidingCounter last1h = new SlidingCounter(MINUTE, 60);
+        private final SlidingCounter last6h = new SlidingCounter(5 * MINUTE, 72);
+        private final SlidingCounter window;
+        private volatile BurnAlert alert = BurnAlert.NONE;
+
+        SloState(SloDefinition definition) {
+            this.definition = definition;
+            this.window = new SlidingCounter(HOUR, definition.getWindowDays() * 24);
+        }
+
+        synchronized void record(long time, boolean good) {
+            last5m.record(time, good);
+            last30m.record(time, good);
+            last1h.record(time, good);
+            last6h.record(time, good);
+            window.record(time, good);
+        }
+
+        synchronized SloStatus status(long now) {
+            double budget = 1 - definition.getObjective() / 100;
+            long total = window.total(now);
+            Double sli = total > 0 ? (double) window.good(now) / total : null;
+            return new SloStatus(definition.getId(), definition.getAppId(), definition.getName(),
+                    definition.getObjective(), definition.getWindowDays(), definition.getLatencyThresholdMs(),
+                    total, sli,
+                    sli != null ? 1 - (1 - sli) / budget : null,
+                    burnRate(last5m, now, budget), burnRate(last30m, now, budget),
+                    burnRate(last1h, now, budget), burnRate(last6h, now, budget),
+                    alert);
+        }
+
+        private static double burnRate(SlidingCounter counter, long now, double budget) {
+            long total = counter.total(now);
+            return total == 0 ? 0 : (double) (total - counter.good(now)) / total / budget;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package org.azirar.glenn.handlers;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import lombok.extern.slf4j.Slf4j;
+import org.azirar.glenn.models.StatusCheck;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Mesure le démarrage depuis le lancement de la JVM : application prête, puis premier résultat de sonde.
+ * Exposé dans /actuator/metrics (glenn.startup.ready, glenn.startup.first.probe).
+ */
+@Slf4j
+@Component
+public class StartupTimer {
+
+    private final AtomicLong readyMillis = new AtomicLong(-1);
+    private final AtomicLong firstProbeMillis = new AtomicLong(-1);
+
+    public StartupTimer(MeterRegistry meterRegistry) {
+        TimeGauge.builder("glenn.startup.ready", readyMillis, TimeUnit.MILLISECONDS, StartupTimer::valueOf)
+                .description("Délai entre le lancement de la JVM et l'application prête")
+                .register(meterRegistry);
+        TimeGauge.builder("glenn.startup.first.probe", firstProbeMillis, TimeUnit.MILLISECONDS, StartupTimer::valueOf)
+                .description("Délai entre le lancement de la JVM et le premier résultat de sonde")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        readyMillis.set(sinceJvmStart());
+        log.info("🚀 Ready {} ms after JVM start", readyMillis.get());
+    }
+
+    public void onProbe(StatusCheck check) {
+        if (firstProbeMillis.get() < 0 && firstProbeMillis.compareAndSet(-1, sinceJvmStart())) {
+            log.info("🚀 First probe ({}) {} ms after JVM start", check.getAppName(), firstProbeMillis.get());
+        }
+    }
+
+    private static double valueOf(AtomicLong millis) {
+        return millis.get() < 0 ? Double.NaN : millis.get();
+    }
+
+    private static long sinceJvmStart() {
+        return System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+    }
+}
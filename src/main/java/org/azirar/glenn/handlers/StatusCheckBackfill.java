@@ -0,0 +1,175 @@
+package org.azirar.glenn.handlers;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.azirar.glenn.models.ErrorKind;
+import org.azirar.glenn.repositories.StatusStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Convertit en arrière-plan les anciennes lignes de status_checks vers le format compact :
+ * response_time texte → response_time_ms, error_message → error_code + error_detail,
+ * app_name supprimé (le nom vient de monitored_apps).
+ * <p>
+ * Par tranches d'identifiants, des plus récents aux plus anciens, avec une pause entre deux
+ * tranches : pas de verrou long, l'application reste en service. Une fois tout converti,
+ * l'empreinte de schéma est effacée pour que le prochain démarrage relance Liquibase,
+ * qui supprime alors les anciennes colonnes.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StatusCheckBackfill {
+
+    // Messages historiques "libellé" ou "libellé: détail" → code ErrorKind ; inconnus → UNKNOWN avec le message en détail
+    private static final String ERROR_CODE_SQL = "CASE WHEN o.error_message IS NULL THEN NULL " +
+            String.join(" ", Arrays.stream(ErrorKind.values())
+                    .map(kind -> "WHEN o.error_message = " + literal(kind.label()) +
+                            " OR o.error_message LIKE " + literal(likeEscape(kind.label()) + ": %") +
+                            " THEN " + kind.code())
+                    .toList()) +
+            " ELSE " + ErrorKind.UNKNOWN.code() + " END";
+
+    private static final String ERROR_DETAIL_SQL = "CASE WHEN o.error_message IS NULL THEN NULL " +
+            String.join(" ", Arrays.stream(ErrorKind.values())
+                    .map(kind -> "WHEN o.error_message = " + literal(kind.label()) + " THEN NULL " +
+                            "WHEN o.error_message LIKE " + literal(likeEscape(kind.label()) + ": %") +
+                            " THEN substr(o.error_message, " + (kind.label().length() + 3) + ")")
+                    .toList()) +
+            " ELSE o.error_message END";
+
+    private final DatabaseClient databaseClient;
+    private final StatusStore statusStore;
+
+    @Value("${migration.backfill.enabled:true}")
+    private boolean enabled;
+
+    @Value("${migration.backfill.batch-size:5000}")
+    private int batchSize;
+
+    @Value("${migration.backfill.pause:200}")
+    private long pauseMillis;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!statusStore.sharesDatabase()) {
+            return;
+        }
+        syncErrorKinds()
+                .then(hasLegacyColumns())
+                .filter(legacy -> legacy && enabled)
+                .flatMap(legacy -> backfill())
+                .subscribe(
+                        done -> { },
+                        e -> log.error("❌ Status check backfill failed: {}", e.getMessage()));
+    }
+
+    /**
+     * Le dictionnaire error_kinds suit l'enum : les jointures SQL (reconstruction des incidents) en dépendent
+     */
+    private Mono<Void> syncErrorKinds() {
+        return Flux.fromArray(ErrorKind.values())
+                .concatMap(kind -> databaseClient.sql("INSERT INTO error_kinds (code, label) VALUES (:code, :label) " +
+                                "ON CONFLICT (code) DO UPDATE SET label = EXCLUDED.label")
+                        .bind("code", kind.code())
+                        .bind("label", kind.label())
+                        .fetch()
+                        .rowsUpdated())
+                .then();
+    }
+
+    private Mono<Boolean> hasLegacyColumns() {
+        return databaseClient.sql("SELECT COUNT(*) AS n FROM information_schema.columns " +
+                        "WHERE table_schema = current_schema() AND table_name = 'status_checks' AND column_name = 'response_time'")
+                .map(row -> row.get("n", Long.class))
+                .one()
+                .map(n -> n > 0);
+    }
+
+    private Mono<Long> backfill() {
+        AtomicLong rows = new AtomicLong();
+        AtomicLong bytesBefore = new AtomicLong();
+        AtomicLong bytesAfter = new AtomicLong();
+        long started = System.currentTimeMillis();
+
+        return databaseClient.sql("SELECT MIN(id) AS min_id, MAX(id) AS max_id FROM status_checks")
+                .map(row -> new long[]{
+                        row.get("min_id", Long.class) != null ? row.get("min_id", Long.class) : 0L,
+                        row.get("max_id", Long.class) != null ? row.get("max_id", Long.class) : -1L})
+                .one()
+                .doOnNext(range -> log.info("🔧 Converting status_checks to the compact format (ids {}..{}, batches of {})",
+                        range[0], range[1], batchSize))
+                .flatMapMany(range -> Flux.<Long, Long>generate(() -> range[1], (upper, sink) -> {
+                            if (upper < range[0]) {
+                                sink.complete();
+                            } else {
+                                sink.next(upper);
+                            }
+                            return upper - batchSize;
+                        })
+                        .concatMap(upper -> convertBatch(upper - batchSize, upper)
+                                .doOnNext(batch -> {
+                                    rows.addAndGet(batch[0]);
+                                    bytesBefore.addAndGet(batch[1]);
+                                    bytesAfter.addAndGet(batch[2]);
+                                })
+                                .then(Mono.delay(Duration.ofMillis(pauseMillis)))))
+                .then(Mono.fromCallable(() -> {
+                    if (rows.get() > 0) {
+                        log.info("📏 status_checks: {} rows converted in {} s, {} → {} bytes per row",
+                                rows.get(), (System.currentTimeMillis() - started) / 1000,
+                                bytesBefore.get() / rows.get(), bytesAfter.get() / rows.get());
+                    }
+                    return rows.get();
+                }))
+                .flatMap(converted -> databaseClient.sql("DELETE FROM schema_fingerprint")
+                        .fetch()
+                        .rowsUpdated()
+                        .doOnNext(n -> log.info("✅ Status check backfill complete; legacy columns will be dropped at next startup"))
+                        .thenReturn(converted));
+    }
+
+    /**
+     * Convertit les lignes (from, to] encore au format historique ; retourne
+     * {nombre de lignes, octets avant, octets après} mesurés avec pg_column_size
+     */
+    private Mono<long[]> convertBatch(long from, long to) {
+        return databaseClient.sql("WITH moved AS (" +
+                        "UPDATE status_checks s SET " +
+                        "response_time_ms = COALESCE(s.response_time_ms, substring(o.response_time FROM '^([0-9]{1,9})')::integer), " +
+                        "error_code = COALESCE(s.error_code, " + ERROR_CODE_SQL + "), " +
+                        "error_detail = COALESCE(s.error_detail, " + ERROR_DETAIL_SQL + "), " +
+                        "app_name = NULL, response_time = NULL, error_message = NULL " +
+                        "FROM (SELECT id, response_time, error_message, pg_column_size(l.*) AS old_size FROM status_checks l " +
+                        "WHERE l.id > :from AND l.id <= :to " +
+                        "AND (l.app_name IS NOT NULL OR l.response_time IS NOT NULL OR l.error_message IS NOT NULL)) o " +
+                        "WHERE s.id = o.id " +
+                        "RETURNING o.old_size, pg_column_size(s.*) AS new_size" +
+                        ") SELECT COUNT(*) AS n, COALESCE(SUM(old_size), 0) AS old_bytes, COALESCE(SUM(new_size), 0) AS new_bytes FROM moved")
+                .bind("from", from)
+                .bind("to", to)
+                .map(row -> new long[]{
+                        row.get("n", Long.class),
+                        row.get("old_bytes", Number.class).longValue(),
+                        row.get("new_bytes", Number.class).longValue()})
+                .one();
+    }
+
+    private static String literal(String value) {
+        return "'" + value.replace("'", "''") + "'";
+    }
+
+    private static String likeEscape(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
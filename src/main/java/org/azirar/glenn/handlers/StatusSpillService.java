@@ -0,0 +1,191 @@
+package org.azirar.glenn.handlers;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.azirar.glenn.models.StatusCheck;
+import org.azirar.glenn.repositories.SpillLog;
+import org.azirar.glenn.repositories.StatusStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Débordement sur disque des checks pendant une panne ou un ralentissement de la base.
+ * <p>
+ * Un lot dont l'écriture échoue ou dépasse {@code monitoring.persistence.write-timeout} est
+ * ajouté au journal local ; tant que le journal n'est pas vide, les lots suivants y vont aussi,
+ * pour que chaque application retrouve ses checks en base dans l'ordre. Les checks continuent
+ * vers le dashboard et le live-status. Le journal est rejoué par lots dès que la base répond,
+ * et chaque lot rejoué passe ensuite par les incidents, dans l'ordre et avec ses horodatages :
+ * une panne commencée pendant l'incident de base est ouverte à son premier check DOWN.
+ * Au-delà de {@code monitoring.spill.max-bytes}, les nouveaux checks ne sont plus conservés.
+ */
+@Slf4j
+@Service
+public class StatusSpillService {
+
+    private final StatusStore statusRepository;
+    private final IncidentService incidentService;
+    private final SpillLog spillLog;
+    private final Counter droppedCounter;
+    private final AtomicBoolean replaying = new AtomicBoolean();
+    private volatile boolean outage;
+    private volatile long outageStartedAt;
+
+    @Value("${monitoring.persistence.write-timeout:5000}")
+    private long writeTimeout;
+
+    @Value("${monitoring.spill.replay-batch-size:500}")
+    private int replayBatchSize;
+
+    public StatusSpillService(StatusStore statusRepository,
+                              IncidentService incidentService,
+                              MeterRegistry meterRegistry,
+                              @Value("${monitoring.spill.enabled:true}") boolean enabled,
+                              @Value("${monitoring.spill.path:data/spill}") String path,
+                              @Value("${monitoring.spill.max-bytes:268435456}") long maxBytes) throws IOException {
+        this.statusRepository = statusRepository;
+        this.incidentService = incidentService;
+        this.spillLog = enabled ? new SpillLog(Path.of(path).resolve("checks.spill"), maxBytes) : null;
+        this.droppedCounter = Counter.builder("glenn.spill.dropped")
+                .description("Checks non enregistrés : base indisponible et journal local plein ou désactivé")
+                .register(meterRegistry);
+        if (spillLog != null) {
+            Gauge.builder("glenn.spill.pending", spillLog, SpillLog::pendingChecks)
+                    .description("Checks en attente de relecture dans le journal local")
+                    .register(meterRegistry);
+            Gauge.builder("glenn.spill.bytes", spillLog, SpillLog::sizeBytes)
+                    .description("Taille du journal local des checks")
+                    .register(meterRegistry);
+            if (!spillLog.isEmpty()) {
+                log.info("💾 {} spilled checks found in {}, they will be replayed", spillLog.pendingChecks(), path);
+            }
+        }
+    }
+
+    public Duration writeTimeout() {
+        return Duration.ofMillis(writeTimeout);
+    }
+
+    /**
+     * Des checks attendent sur disque : les suivants doivent passer derrière eux
+     */
+    public boolean isSpilling() {
+        return spillLog != null && !spillLog.isEmpty();
+    }
+
+    /**
+     * Ajoute le lot au journal ({@code cause} : échec d'écriture qui l'y envoie) et le rend
+     * tel quel pour la suite du flux ; ne propage jamais d'erreur
+     */
+    public Flux<StatusCheck> spill(List<StatusCheck> batch, Throwable cause) {
+        return Mono.fromRunnable(() -> append(batch, cause))
+                .subscribeOn(Schedulers.boundedElastic())
+                .thenMany(Flux.fromIterable(batch));
+    }
+
+    private void append(List<StatusCheck> batch, Throwable cause) {
+        if (cause != null && (!outage || spillLog == null)) {
+            outage = true;
+            outageStartedAt = System.currentTimeMillis();
+            log.warn("⚠️ Status check persistence failed ({}), {}", cause.getMessage(),
+                    spillLog != null ? "spilling checks to disk" : "checks are dropped (spill disabled)");
+        }
+        int written = 0;
+        if (spillLog != null) {
+            try {
+                written = spillLog.append(batch);
+            } catch (IOException e) {
+                log.error("❌ Spill write failed: {}", e.getMessage());
+            }
+        }
+        if (written < batch.size()) {
+            droppedCounter.increment(batch.size() - written);
+            log.warn("⚠️ {} status checks dropped: spill file full or unavailable", batch.size() - written);
+        }
+    }
+
+    // --- RELECTURE ---
+
+    /**
+     * Rejoue le journal par lots, du plus ancien au plus récent ; s'arrête au premier échec
+     * et reprendra au passage suivant. Un lot rejoué deux fois n'est écrit qu'une fois (clé unique).
+     * Ses incidents sont appliqués avant d'avancer la position : tant qu'il reste des checks sur
+     * disque, le flux principal n'y touche pas, et l'ordre par application est conservé.
+     */
+    @Scheduled(fixedDelayString = "${monitoring.spill.replay-interval:5000}")
+    public void replay() {
+        if (!isSpilling() || !replaying.compareAndSet(false, true)) {
+            return;
+        }
+        Mono.fromCallable(() -> spillLog.peek(replayBatchSize))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(batch -> statusRepository.saveAll(groupByApp(batch.checks()))
+                        .collectList()
+                        .timeout(writeTimeout())
+                        .flatMapMany(Flux::fromIterable)
+                        .concatMap(this::recordIncident)
+                        .then(Mono.fromCallable(() -> {
+                            spillLog.commit(batch);
+                            return (long) batch.checks().size();
+                        }).subscribeOn(Schedulers.boundedElastic())))
+                .repeat(this::isSpilling)
+                .reduce(0L, Long::sum)
+                .doFinally(signal -> replaying.set(false))
+                .subscribe(
+                        replayed -> {
+                            if (replayed > 0) {
+                                log.info("✅ Database available again: {} spilled checks replayed{}", replayed,
+                                        outage ? " after " + (System.currentTimeMillis() - outageStartedAt) / 1000 + " s" : "");
+                            }
+                            outage = false;
+                        },
+                        e -> log.debug("💾 Spill replay postponed: {}", e.getMessage()));
+    }
+
+    private Mono<StatusCheck> recordIncident(StatusCheck check) {
+        return incidentService.record(check)
+                .timeout(writeTimeout())
+                .onErrorResume(e -> {
+                    // Le check suivant de l'application réconciliera son incident
+                    incidentService.forget(check.getAppId());
+                    log.warn("⚠️ Incident update skipped for replayed check of app {}: {}", check.getAppId(), e.getMessage());
+                    return Mono.just(check);
+                });
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (spillLog != null) {
+            spillLog.close();
+        }
+    }
+
+    /**
+     * Regroupe les checks d'une même application, dans leur ordre d'arrivée
+     */
+    private static List<StatusCheck> groupByApp(List<StatusCheck> checks) {
+        Map<Long, List<StatusCheck>> byApp = new LinkedHashMap<>();
+        for (StatusCheck check : checks) {
+            byApp.computeIfAbsent(check.getAppId(), id -> new ArrayList<>()).add(check);
+        }
+        List<StatusCheck> grouped = new ArrayList<>(checks.size());
+        byApp.values().forEach(grouped::addAll);
+        return grouped;
+    }
+}
@@ -0,0 +1,194 @@
+package org.azirar.glenn.handlers;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.azirar.glenn.handlers.DashboardSnapshotService.DashboardSnapshot;
+import org.azirar.glenn.models.MonitoredApp;
+import org.azirar.glenn.models.StatusCheck;
+import org.azirar.glenn.models.StatusSummary;
+import org.azirar.glenn.models.StatusSummary.AppState;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Résumé JSON de l'état des applications, sérialisé une seule fois par version du snapshot
+ * du dashboard (et par catégorie demandée), puis servi tel quel avec son ETag.
+ * Un poller qui interroge l'API en boucle ne coûte ni requête SQL ni sérialisation.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StatusSummaryService {
+
+    private static final long DAY_SECONDS = Duration.ofDays(1).toSeconds();
+    private static final long WEEK_SECONDS = Duration.ofDays(7).toSeconds();
+
+    // Temps d'indisponibilité par application sur 24 h et 7 jours, à partir des incidents
+    private static final String DOWNTIME_SQL =
+            "SELECT app_id, " +
+            "SUM(GREATEST(0, EXTRACT(EPOCH FROM (COALESCE(ended_at, :now) - GREATEST(started_at, :since24h)))))::float8 AS down_24h, " +
+            "SUM(GREATEST(0, EXTRACT(EPOCH FROM (COALESCE(ended_at, :now) - GREATEST(started_at, :since7d)))))::float8 AS down_7d, " +
+            "MIN(started_at) FILTER (WHERE ended_at IS NULL) AS down_since " +
+            "FROM incidents WHERE ended_at IS NULL OR ended_at > :since7d GROUP BY app_id";
+
+    private final DashboardSnapshotService dashboardSnapshotService;
+    private final DatabaseClient databaseClient;
+    private final ObjectMapper objectMapper;
+
+    private volatile Mono<SummarySnapshot> cachedSummary;
+    private volatile String cachedSource;
+
+    /**
+     * Résumé sérialisé de toutes les applications, ou d'une catégorie
+     */
+    public Mono<SerializedSummary> getSummary(String category) {
+        return dashboardSnapshotService.getSnapshot()
+                .flatMap(this::summaryFor)
+                .map(summary -> summary.serialized(category == null || category.isBlank() ? null : category));
+    }
+
+    private Mono<SummarySnapshot> summaryFor(DashboardSnapshot snapshot) {
+        Mono<SummarySnapshot> summary = cachedSummary;
+        if (summary != null && snapshot.etag().equals(cachedSource)) {
+            return summary;
+        }
+        synchronized (this) {
+            if (!snapshot.etag().equals(cachedSource)) {
+                cachedSource = snapshot.etag();
+                cachedSummary = buildSummary(snapshot).cache();
+            }
+            return cachedSummary;
+        }
+    }
+
+    private Mono<SummarySnapshot> buildSummary(DashboardSnapshot snapshot) {
+        LocalDateTime now = LocalDateTime.now();
+        return databaseClient.sql(DOWNTIME_SQL)
+                .bind("now", now)
+                .bind("since24h", now.minusDays(1))
+                .bind("since7d", now.minusDays(7))
+                .map(row -> new Downtime(
+                        row.get("app_id", Long.class),
+                        row.get("down_24h", Double.class),
+                        row.get("down_7d", Double.class),
+                        row.get("down_since", LocalDateTime.class)))
+                .all()
+                .collectMap(Downtime::appId)
+                .map(downtimes -> {
+                    List<AppState> apps = snapshot.apps().stream()
+                            .map(app -> toState(app, snapshot.latestStatuses().get(app.getId()),
+                                    downtimes.get(app.getId()), now))
+                            .toList();
+                    log.debug("Status summary rebuilt - {} apps", apps.size());
+                    return new SummarySnapshot(snapshot.etag(), now, apps);
+                })
+                .onErrorResume(e -> {
+                    // On ne garde pas une erreur en cache
+                    cachedSource = null;
+                    return Mono.error(e);
+                });
+    }
+
+    private AppState toState(MonitoredApp app, StatusCheck last, Downtime downtime, LocalDateTime now) {
+        String state;
+        if (!Boolean.TRUE.equals(app.getActive())) {
+            state = StatusSummary.INACTIVE;
+        } else if (last == null) {
+            state = StatusSummary.UNKNOWN;
+        } else {
+            state = Boolean.TRUE.equals(last.getIsUp()) ? StatusSummary.UP : StatusSummary.DOWN;
+        }
+        return new AppState(
+                app.getId(),
+                app.getName(),
+                categoryOf(app),
+                state,
+                last != null ? last.getStatusCode() : null,
+                last != null ? last.getResponseTimeMs() : null,
+                last != null ? last.getCheckedAt() : null,
+                downtime != null ? downtime.downSince() : null,
+                uptime(app, downtime != null ? downtime.down24h() : null, DAY_SECONDS, now),
+                uptime(app, downtime != null ? downtime.down7d() : null, WEEK_SECONDS, now));
+    }
+
+    /**
+     * Disponibilité sur la fenêtre, réduite à la durée de vie de l'application si elle est plus récente
+     */
+    private static double uptime(MonitoredApp app, Double downSeconds, long windowSeconds, LocalDateTime now) {
+        long period = windowSeconds;
+        if (app.getCreatedAt() != null) {
+            period = Math.min(period, Duration.between(app.getCreatedAt(), now).toSeconds());
+        }
+        if (period <= 0 || downSeconds == null) {
+            return 100.0;
+        }
+        double uptime = Math.max(0, period - downSeconds) * 100.0 / period;
+        return Math.round(uptime * 1000) / 1000.0;
+    }
+
+    private static String categoryOf(MonitoredApp app) {
+        return app.getCategory() == null || app.getCategory().isBlank()
+                ? AppSearchService.UNCATEGORIZED
+                : app.getCategory();
+    }
+
+    public record SerializedSummary(String etag, byte[] body) {
+    }
+
+    private record Downtime(Long appId, Double down24h, Double down7d, LocalDateTime downSince) {
+    }
+
+    /**
+     * États calculés pour une version du snapshot ; chaque vue (flotte, catégorie) est sérialisée au premier appel
+     */
+    private final class SummarySnapshot {
+
+        private final String source;
+        private final LocalDateTime generatedAt;
+        private final List<AppState> apps;
+        private final Map<String, SerializedSummary> serialized = new ConcurrentHashMap<>();
+
+        private SummarySnapshot(String source, LocalDateTime generatedAt, List<AppState> apps) {
+            this.source = source;
+            this.generatedAt = generatedAt;
+            this.apps = apps;
+        }
+
+        private SerializedSummary serialized(String category) {
+            if (category != null && apps.stream().noneMatch(app -> category.equals(app.category()))) {
+                // Catégorie inconnue : pas de mise en cache, la clé vient du client
+                return serialize(category, "?" + category);
+            }
+            return serialized.computeIfAbsent(category == null ? "" : category, key -> serialize(category, key));
+        }
+
+        private SerializedSummary serialize(String category, String key) {
+            List<AppState> selected = category == null ? apps : apps.stream()
+                    .filter(app -> category.equals(app.category()))
+                    .toList();
+            Map<String, Integer> counts = new HashMap<>();
+            selected.forEach(app -> counts.merge(app.state(), 1, Integer::sum));
+            StatusSummary summary = new StatusSummary(generatedAt, category, selected.size(),
+                    counts.getOrDefault(StatusSummary.UP, 0),
+                    counts.getOrDefault(StatusSummary.DOWN, 0),
+                    counts.getOrDefault(StatusSummary.INACTIVE, 0),
+                    selected);
+            try {
+                String etag = "\"" + source.replace("\"", "") + "-" + Integer.toHexString(key.hashCode()) + "\"";
+                return new SerializedSummary(etag, objectMapper.writeValueAsBytes(summary));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
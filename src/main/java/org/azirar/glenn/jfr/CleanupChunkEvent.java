@@ -0,0 +1,43 @@
+package org.azirar.glenn.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Nettoyage de l'historique d'une application.
+ */
+@Name("org.azirar.glenn.CleanupChunk")
+@Label("History Cleanup Chunk")
+@Category({"Glenn", "Persistence"})
+@Description("Deletion of status checks beyond the per-app history limit")
+@Enabled(false)
+@StackTrace(false)
+public class CleanupChunkEvent extends Event {
+
+    @Label("App Id")
+    long appId;
+
+    @Label("Deleted Rows")
+    long deletedRows;
+
+    public static CleanupChunkEvent begin(Long appId) {
+        CleanupChunkEvent event = new CleanupChunkEvent();
+        if (event.isEnabled()) {
+            event.appId = appId != null ? appId : -1;
+            event.begin();
+        }
+        return event;
+    }
+
+    public void complete(long deletedRows) {
+        if (isEnabled()) {
+            this.deletedRows = deletedRows;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package org.azirar.glenn.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+import org.azirar.glenn.models.MonitoredApp;
+import org.azirar.glenn.models.StatusCheck;
+
+/**
+ * Une sonde (HTTP ou TCP) ; la durée de l'événement couvre toute la sonde.
+ * Désactivé par défaut : activé par un enregistrement JFR utilisant glenn.jfc.
+ */
+@Name("org.azirar.glenn.HealthCheck")
+@Label("Health Check")
+@Category({"Glenn", "Monitoring"})
+@Description("Probe of a monitored application")
+@Enabled(false)
+@StackTrace(false)
+public class HealthCheckEvent extends Event {
+
+    @Label("App Id")
+    long appId;
+
+    @Label("Scheme")
+    String scheme;
+
+    @Label("Time To Response")
+    @Description("Time until response headers (HTTP) or connection (TCP)")
+    @Timespan(Timespan.NANOSECONDS)
+    long responseTime;
+
+    @Label("Status Code")
+    int statusCode;
+
+    @Label("Up")
+    boolean up;
+
+    @Label("Outcome")
+    String outcome;
+
+    private transient long startNanos;
+
+    public static HealthCheckEvent begin(MonitoredApp app, String scheme) {
+        HealthCheckEvent event = new HealthCheckEvent();
+        if (event.isEnabled()) {
+            event.appId = app.getId() != null ? app.getId() : -1;
+            event.scheme = scheme;
+            event.startNanos = System.nanoTime();
+            event.begin();
+        }
+        return event;
+    }
+
+    /**
+     * Fin de la première phase : en-têtes reçus ou connexion TCP établie
+     */
+    public void responseReceived() {
+        if (isEnabled()) {
+            responseTime = System.nanoTime() - startNanos;
+        }
+    }
+
+    public void complete(StatusCheck check) {
+        if (isEnabled()) {
+            statusCode = check.getStatusCode() != null ? check.getStatusCode() : 0;
+            up = Boolean.TRUE.equals(check.getIsUp());
+            outcome = up ? "UP" : (check.getErrorMessage() != null ? check.getErrorMessage() : "DOWN");
+            commit();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package org.azirar.glenn.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Écriture d'un lot de StatusCheck en base.
+ */
+@Name("org.azirar.glenn.StatusBatchWrite")
+@Label("Status Batch Write")
+@Category({"Glenn", "Persistence"})
+@Description("Persistence of a batch of status checks")
+@Enabled(false)
+@StackTrace(false)
+public class StatusBatchWriteEvent extends Event {
+
+    @Label("Batch Size")
+    int batchSize;
+
+    @Label("Success")
+    boolean success;
+
+    public static StatusBatchWriteEvent begin(int batchSize) {
+        StatusBatchWriteEvent event = new StatusBatchWriteEvent();
+        if (event.isEnabled()) {
+            event.batchSize = batchSize;
+            event.begin();
+        }
+        return event;
+    }
+
+    public void complete(boolean success) {
+        if (isEnabled()) {
+            this.success = success;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package org.azirar.glenn.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.net.URI;
+
+/**
+ * Envoi d'un message (simple ou de synthèse) vers un webhook.
+ */
+@Name("org.azirar.glenn.WebhookDelivery")
+@Label("Webhook Delivery")
+@Category({"Glenn", "Notifications"})
+@Description("Post of a notification message to a webhook endpoint")
+@Enabled(false)
+@StackTrace(false)
+public class WebhookDeliveryEvent extends Event {
+
+    @Label("Endpoint Host")
+    @Description("Host only: webhook URLs contain secrets")
+    String host;
+
+    @Label("Notifications")
+    int notifications;
+
+    @Label("Attempt")
+    int attempt;
+
+    @Label("Success")
+    boolean success;
+
+    @Label("Error")
+    String error;
+
+    public static WebhookDeliveryEvent begin(String webhookUrl, int notifications, int attempt) {
+        WebhookDeliveryEvent event = new WebhookDeliveryEvent();
+        if (event.isEnabled()) {
+            try {
+                event.host = URI.create(webhookUrl).getHost();
+            } catch (IllegalArgumentException e) {
+                event.host = "invalid";
+            }
+            event.notifications = notifications;
+            event.attempt = attempt;
+            event.begin();
+        }
+        return event;
+    }
+
+    public void complete(Throwable failure) {
+        if (isEnabled()) {
+            success = failure == null;
+            error = failure != null ? failure.getMessage() : null;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package org.azirar.glenn.models;
+
+import java.time.LocalDateTime;
+
+/**
+ * État d'un agent de sonde distant vu par le nœud central
+ */
+public record AgentStatus(String agentId,
+                          String location,
+                          boolean alive,
+                          LocalDateTime lastSeen,
+                          LocalDateTime lastResultsAt,
+                          int assignedApps,
+                          long resultsReceived) {
+}
@@ -0,0 +1,9 @@
+package org.azirar.glenn.models;
+
+import java.util.List;
+
+/**
+ * Une page d'applications ; {@code nextCursor} est null sur la dernière page.
+ */
+public record AppPage(List<MonitoredApp> items, String nextCursor) {
+}
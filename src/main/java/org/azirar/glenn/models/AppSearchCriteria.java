@@ -0,0 +1,21 @@
+package org.azirar.glenn.models;
+
+/**
+ * Critères de recherche d'applications (filtres évalués côté serveur).
+ *
+ * @param query    préfixe recherché dans le nom ou l'URL (insensible à la casse)
+ * @param category catégorie exacte, ou "Uncategorized" pour les applications sans catégorie
+ * @param status   up, down ou inactive
+ * @param after    curseur opaque renvoyé par la page précédente
+ * @param limit    taille de page
+ */
+public record AppSearchCriteria(String query, String category, String status, String after, int limit) {
+
+    public boolean isEmpty() {
+        return isBlank(query) && isBlank(category) && isBlank(status) && isBlank(after);
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
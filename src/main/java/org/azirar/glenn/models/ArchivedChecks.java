@@ -0,0 +1,48 @@
+package org.azirar.glenn.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Lot compressé de checks d'une application pour une journée (voir ArchiveChunkCodec).
+ * Les compteurs permettent de calculer la disponibilité sans décoder le lot.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table("status_check_archive")
+public class ArchivedChecks {
+
+    @Id
+    private Long id;
+
+    private Long appId;
+
+    private LocalDate day;
+
+    private LocalDateTime firstAt;
+
+    private LocalDateTime lastAt;
+
+    private Integer checkCount;
+
+    private Integer upCount;
+
+    private Long latencySumMs;
+
+    private Integer latencyCount; // Checks avec un temps de réponse connu
+
+    private Short codecVersion;
+
+    @JsonIgnore
+    private byte[] payload;
+}
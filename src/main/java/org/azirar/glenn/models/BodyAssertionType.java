@@ -0,0 +1,11 @@
+package org.azirar.glenn.models;
+
+/**
+ * Type d'assertion appliquée au corps de la réponse HTTP
+ */
+public enum BodyAssertionType {
+    NONE,
+    SUBSTRING,
+    REGEX,
+    JSON_POINTER
+}
@@ -0,0 +1,10 @@
+package org.azirar.glenn.models;
+
+/**
+ * Niveau d'alerte d'un SLO selon la vitesse de consommation du budget d'erreur
+ */
+public enum BurnAlert {
+    NONE,
+    TICKET, // Consommation lente mais soutenue (6h / 30 min)
+    PAGE    // Consommation rapide (1h / 5 min)
+}
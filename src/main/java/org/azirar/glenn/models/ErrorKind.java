@@ -0,0 +1,58 @@
+package org.azirar.glenn.models;
+
+/**
+ * Nature d'un échec de check, stockée sous forme de code court (colonne {@code error_code}).
+ * Le libellé reprend le message historique ; le détail variable éventuel est stocké à part.
+ * Les codes sont persistés : ne jamais renuméroter, seulement ajouter.
+ */
+public enum ErrorKind {
+    UNKNOWN(0, "Error"),
+    SSL_SNI(1, "SSL Error: Server name not recognized (SNI issue)"),
+    SSL_HANDSHAKE(2, "SSL Handshake failed"),
+    TIMEOUT(3, "Connection timeout after 5 seconds"),
+    CONNECT_TIMEOUT(4, "Connection timeout: Server unreachable"),
+    CONNECTION_REFUSED(5, "Connection refused: Server is down or port closed"),
+    REQUEST_FAILED(6, "Request failed"),
+    BODY_ASSERTION(7, "Body assertion failed"),
+    INVALID_ASSERTION(8, "Invalid body assertion"),
+    PORT_UNREACHABLE(9, "Stream/Port Unreachable"),
+    UPSTREAM_DOWN(10, "Upstream app is DOWN");
+
+    private static final ErrorKind[] BY_CODE = new ErrorKind[values().length];
+
+    static {
+        for (ErrorKind kind : values()) {
+            BY_CODE[kind.code] = kind;
+        }
+    }
+
+    private final short code;
+    private final String label;
+
+    ErrorKind(int code, String label) {
+        this.code = (short) code;
+        this.label = label;
+    }
+
+    public short code() {
+        return code;
+    }
+
+    public String label() {
+        return label;
+    }
+
+    /**
+     * Message lisible : libellé, suivi du détail s'il y en a un
+     */
+    public String message(String detail) {
+        return detail == null || detail.isEmpty() ? label : label + ": " + detail;
+    }
+
+    public static ErrorKind of(Short code) {
+        if (code == null || code < 0 || code >= BY_CODE.length || BY_CODE[code] == null) {
+            return UNKNOWN;
+        }
+        return BY_CODE[code];
+    }
+}
@@ -0,0 +1,31 @@
+package org.azirar.glenn.models;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Compteurs de la flotte et de chaque catégorie, sans le détail par application,
+ * pour les murs d'écrans qui n'affichent que des tuiles de catégorie.
+ * {@code version} change dès qu'une valeur visible change.
+ */
+public record FleetAggregates(long version,
+                              LocalDateTime generatedAt,
+                              CategoryAggregate fleet,
+                              List<CategoryAggregate> categories) {
+
+    /**
+     * {@code unknown} : applications actives sans check. La latence la plus haute ne porte
+     * que sur les applications UP, l'indisponibilité la plus longue sur les DOWN actives.
+     */
+    public record CategoryAggregate(String category,
+                                    int total,
+                                    int up,
+                                    int down,
+                                    int inactive,
+                                    int unknown,
+                                    Integer worstLatencyMs,
+                                    Long worstLatencyAppId,
+                                    LocalDateTime longestDownSince,
+                                    Long longestDownAppId) {
+    }
+}
@@ -0,0 +1,17 @@
+package org.azirar.glenn.models;
+
+import java.time.LocalDateTime;
+
+/**
+ * Disponibilité calculée sur les checks eux-mêmes (archive + historique récent) :
+ * part des checks UP et temps de réponse moyen sur la période.
+ */
+public record HistoryUptime(Long appId,
+                            LocalDateTime from,
+                            LocalDateTime to,
+                            long checks,
+                            long upChecks,
+                            long archivedChecks,
+                            Double uptimePercentage,
+                            Double avgResponseTimeMs) {
+}
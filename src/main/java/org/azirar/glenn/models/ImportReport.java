@@ -0,0 +1,9 @@
+package org.azirar.glenn.models;
+
+import java.util.List;
+
+/**
+ * Résultat d'un import en masse ; {@code errors} est limité aux premières lignes rejetées.
+ */
+public record ImportReport(long imported, long rejected, List<String> errors) {
+}
@@ -0,0 +1,47 @@
+package org.azirar.glenn.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table("incidents")
+public class Incident {
+
+    @Id
+    private Long id;
+
+    private Long appId;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime endedAt; // null tant que l'application est DOWN
+
+    private String firstError;
+
+    private Integer checkCount;
+
+    private LocalDateTime lastCheckAt;
+
+    private Long parentIncidentId; // Incident de la dépendance amont, si la panne en découle
+
+    public boolean isOpen() {
+        return endedAt == null;
+    }
+
+    /**
+     * Durée de l'incident ; un incident ouvert court jusqu'à maintenant
+     */
+    public long getDurationSeconds() {
+        return Duration.between(startedAt, endedAt != null ? endedAt : LocalDateTime.now()).toSeconds();
+    }
+}
@@ -54,6 +54,23 @@ public class MonitoredApp {
 
     // ------------------------------------------
 
+    // --- ASSERTIONS SUR LE CORPS DE RÉPONSE (HTTP) ---
+
+    @Builder.Default
+    private BodyAssertionType bodyAssertionType = BodyAssertionType.NONE;
+
+    private String bodyAssertionValue; // Texte, regex ou JSON pointer selon le type
+
+    private String bodyAssertionExpected; // Valeur attendue pour JSON_POINTER
+
+    private Integer maxBodyBytes; // Budget d'octets lus avant abandon (défaut : monitoring.body.max-bytes)
+
+    // ------------------------------------------
+
+    private String probeLocation; // Emplacement des agents qui sondent l'app (null = nœud central)
+
+    private Long parentAppId; // Dépendance amont : si elle est DOWN, les sondes de l'app sont espacées
+
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
@@ -76,6 +93,14 @@ public class MonitoredApp {
         }
     }
 
+    public boolean hasBodyAssertion() {
+        return bodyAssertionType != null && bodyAssertionType != BodyAssertionType.NONE;
+    }
+
+    public boolean hasProbeLocation() {
+        return probeLocation != null && !probeLocation.isBlank();
+    }
+
     public void setAcceptedStatusesFromList(List<Integer> statuses) {
         if (statuses == null || statuses.isEmpty()) {
             this.acceptedStatuses = "200";
@@ -0,0 +1,34 @@
+package org.azirar.glenn.models;
+
+/**
+ * Application telle qu'envoyée à un agent : seulement ce qu'il faut pour la sonder,
+ * sans webhook, description ni état de notification
+ */
+public record ProbeAssignment(Long id,
+                              String name,
+                              String url,
+                              String acceptedStatuses,
+                              BodyAssertionType bodyAssertionType,
+                              String bodyAssertionValue,
+                              String bodyAssertionExpected,
+                              Integer maxBodyBytes) {
+
+    public static ProbeAssignment of(MonitoredApp app) {
+        return new ProbeAssignment(app.getId(), app.getName(), app.getUrl(), app.getAcceptedStatuses(),
+                app.getBodyAssertionType(), app.getBodyAssertionValue(), app.getBodyAssertionExpected(),
+                app.getMaxBodyBytes());
+    }
+
+    public MonitoredApp toApp() {
+        return MonitoredApp.builder()
+                .id(id)
+                .name(name)
+                .url(url)
+                .acceptedStatuses(acceptedStatuses)
+                .bodyAssertionType(bodyAssertionType != null ? bodyAssertionType : BodyAssertionType.NONE)
+                .bodyAssertionValue(bodyAssertionValue)
+                .bodyAssertionExpected(bodyAssertionExpected)
+                .maxBodyBytes(maxBodyBytes)
+                .build();
+    }
+}
@@ -0,0 +1,18 @@
+package org.azirar.glenn.models;
+
+import java.time.LocalDateTime;
+
+/**
+ * Disponibilité d'une application sur une période, calculée à partir des incidents.
+ * {@code mttrSeconds} / {@code mtbfSeconds} valent null quand aucun incident ne permet de les calculer.
+ */
+public record ReliabilityReport(Long appId,
+                                LocalDateTime from,
+                                LocalDateTime to,
+                                double uptimePercentage,
+                                long downtimeSeconds,
+                                int incidentCount,
+                                Long mttrSeconds,
+                                Long mtbfSeconds,
+                                LocalDateTime downSince) {
+}
@@ -0,0 +1,49 @@
+package org.azirar.glenn.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * Objectif de service d'une application : part de checks « bons » visée sur une fenêtre glissante.
+ * Un check est bon s'il est UP et, quand un seuil est défini, s'il a répondu dans le seuil.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table("slo_definitions")
+public class SloDefinition {
+
+    @Id
+    private Long id;
+
+    private Long appId;
+
+    private String name;
+
+    private Double objective; // En pourcentage, ex. 99.9
+
+    @Builder.Default
+    private Integer windowDays = 30;
+
+    private Integer latencyThresholdMs;
+
+    @Builder.Default
+    private Boolean active = true;
+
+    private LocalDateTime createdAt;
+
+    public boolean isGood(StatusCheck check) {
+        if (!Boolean.TRUE.equals(check.getIsUp())) {
+            return false;
+        }
+        return latencyThresholdMs == null
+                || (check.getResponseTimeMs() != null && check.getResponseTimeMs() <= latencyThresholdMs);
+    }
+}
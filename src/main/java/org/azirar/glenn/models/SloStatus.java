@@ -0,0 +1,22 @@
+package org.azirar.glenn.models;
+
+/**
+ * État courant d'un SLO. {@code sli} et {@code budgetRemaining} sont des fractions (0..1),
+ * null tant qu'aucun check n'a été compté ; le budget restant devient négatif une fois épuisé.
+ * Un taux de consommation de 1 épuise le budget exactement à la fin de la fenêtre.
+ */
+public record SloStatus(Long sloId,
+                        Long appId,
+                        String name,
+                        double objective,
+                        int windowDays,
+                        Integer latencyThresholdMs,
+                        long checks,
+                        Double sli,
+                        Double budgetRemaining,
+                        double burnRate5m,
+                        double burnRate30m,
+                        double burnRate1h,
+                        double burnRate6h,
+                        BurnAlert alert) {
+}
@@ -5,12 +5,13 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
 import org.springframework.data.relational.core.mapping.Table;
 
 import java.time.LocalDateTime;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 @Table("status_checks")
@@ -20,18 +21,42 @@ public class StatusCheck {
 
     private Long appId;
 
+    // Non persisté : le nom vient du registre des applications (monitored_apps)
+    @Transient
     private String appName;
 
     private Integer statusCode;
 
     private Boolean isUp;
 
-    private String responseTime;
+    private Integer responseTimeMs;
 
-    private String errorMessage;
+    // Code ErrorKind, null si le check n'a pas échoué
+    private Short errorCode;
+
+    private String errorDetail;
 
     private LocalDateTime checkedAt;
 
+    /**
+     * Temps de réponse affiché, ex. "120ms"
+     */
+    public String getResponseTime() {
+        return responseTimeMs != null ? responseTimeMs + "ms" : null;
+    }
+
+    /**
+     * Message d'erreur reconstitué depuis le code et le détail
+     */
+    public String getErrorMessage() {
+        return errorCode != null ? ErrorKind.of(errorCode).message(errorDetail) : null;
+    }
+
+    public void setError(ErrorKind kind, String detail) {
+        this.errorCode = kind.code();
+        this.errorDetail = detail;
+    }
+
     // Pour l'affichage live
     public String getStatusColor() {
         if (isUp) return "success";
@@ -42,4 +67,13 @@ public class StatusCheck {
         if (isUp) return "bi-check-circle-fill";
         return "bi-exclamation-triangle-fill";
     }
-}
\ No newline at end of file
+
+    public static class StatusCheckBuilder {
+
+        public StatusCheckBuilder error(ErrorKind kind, String detail) {
+            this.errorCode = kind.code();
+            this.errorDetail = detail;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package org.azirar.glenn.models;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Résumé machine de l'état de la flotte (ou d'une catégorie), pour les pages de statut et les sondes externes
+ */
+public record StatusSummary(LocalDateTime generatedAt,
+                            String category,
+                            int total,
+                            int up,
+                            int down,
+                            int inactive,
+                            List<AppState> apps) {
+
+    public static final String UP = "UP";
+    public static final String DOWN = "DOWN";
+    public static final String INACTIVE = "INACTIVE";
+    public static final String UNKNOWN = "UNKNOWN";
+
+    public record AppState(Long id,
+                           String name,
+                           String category,
+                           String state,
+                           Integer statusCode,
+                           Integer latencyMs,
+                           LocalDateTime lastCheckedAt,
+                           LocalDateTime downSince,
+                           double uptime24h,
+                           double uptime7d) {
+    }
+}
@@ -0,0 +1,12 @@
+package org.azirar.glenn.models;
+
+/**
+ * Occupation du stockage des checks. {@code totalBytes} inclut les index (SQL) ou les
+ * segments entiers (embarqué) ; {@code rowBytes} est la taille moyenne d'une ligne seule.
+ */
+public record StorageStats(String storage,
+                           long rows,
+                           long totalBytes,
+                           Double bytesPerRow,
+                           Double rowBytes) {
+}
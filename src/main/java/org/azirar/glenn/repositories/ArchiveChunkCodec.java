@@ -0,0 +1,217 @@
+package org.azirar.glenn.repositories;
+
+import org.azirar.glenn.models.StatusCheck;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Encodage colonne par colonne d'un lot de checks d'une application, triés par horodatage :
+ * <ul>
+ *   <li>horodatages (ms) : premier en clair, puis delta-of-delta en varint zigzag</li>
+ *   <li>UP / DOWN : un bit par check</li>
+ *   <li>temps de réponse : XOR avec la valeur précédente, en varint</li>
+ *   <li>code HTTP et code d'erreur : un bit « changé » par check, la valeur seulement quand elle change</li>
+ * </ul>
+ * Le détail des erreurs n'est pas archivé. Les sections sont précédées de leur longueur,
+ * ce qui permet au lecteur de les parcourir en parallèle sans tout décoder d'avance.
+ */
+public final class ArchiveChunkCodec {
+
+    public static final short VERSION = 1;
+
+    private ArchiveChunkCodec() {
+    }
+
+    public static byte[] encode(List<StatusCheck> checks) {
+        int count = checks.size();
+        ByteArrayOutputStream times = new ByteArrayOutputStream(count * 2);
+        byte[] upBits = new byte[(count + 7) / 8];
+        ByteArrayOutputStream latencies = new ByteArrayOutputStream(count * 2);
+        byte[] statusChanged = new byte[(count + 7) / 8];
+        ByteArrayOutputStream statuses = new ByteArrayOutputStream();
+        byte[] errorChanged = new byte[(count + 7) / 8];
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+
+        long first = count > 0 ? toMillis(checks.get(0).getCheckedAt()) : 0;
+        long previousTime = first;
+        long previousDelta = 0;
+        int previousLatency = 0;
+        int previousStatus = 0;
+        int previousError = 0;
+        for (int i = 0; i < count; i++) {
+            StatusCheck check = checks.get(i);
+            long time = toMillis(check.getCheckedAt());
+            if (i > 0) {
+                long delta = time - previousTime;
+                writeVarLong(times, zigzag(delta - previousDelta));
+                previousDelta = delta;
+            }
+            previousTime = time;
+
+            if (Boolean.TRUE.equals(check.getIsUp())) {
+                upBits[i >> 3] |= (byte) (1 << (i & 7));
+            }
+
+            // 0 = inconnu, sinon valeur + 1
+            int latency = check.getResponseTimeMs() == null ? 0 : Math.max(0, check.getResponseTimeMs()) + 1;
+            writeVarLong(latencies, (latency ^ previousLatency) & 0xFFFFFFFFL);
+            previousLatency = latency;
+
+            int status = check.getStatusCode() == null ? 0 : check.getStatusCode() + 1;
+            if (status != previousStatus) {
+                statusChanged[i >> 3] |= (byte) (1 << (i & 7));
+                writeVarLong(statuses, zigzag(status));
+                previousStatus = status;
+            }
+
+            int error = check.getErrorCode() == null ? 0 : check.getErrorCode() + 1;
+            if (error != previousError) {
+                errorChanged[i >> 3] |= (byte) (1 << (i & 7));
+                writeVarLong(errors, zigzag(error));
+                previousError = error;
+            }
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 + times.size() + latencies.size() + upBits.length * 3);
+        writeVarLong(out, count);
+        writeVarLong(out, zigzag(first));
+        writeSection(out, times.toByteArray());
+        writeSection(out, latencies.toByteArray());
+        writeSection(out, statuses.toByteArray());
+        writeSection(out, errors.toByteArray());
+        out.writeBytes(upBits);
+        out.writeBytes(statusChanged);
+        out.writeBytes(errorChanged);
+        return out.toByteArray();
+    }
+
+    /**
+     * Décode un lot à la demande, check par check
+     */
+    public static Iterator<StatusCheck> decode(Long appId, byte[] payload) {
+        return new Reader(appId, ByteBuffer.wrap(payload));
+    }
+
+    private static final class Reader implements Iterator<StatusCheck> {
+        private final Long appId;
+        private final int count;
+        private final ByteBuffer times;
+        private final ByteBuffer latencies;
+        private final ByteBuffer statuses;
+        private final ByteBuffer errors;
+        private final ByteBuffer upBits;
+        private final ByteBuffer statusChanged;
+        private final ByteBuffer errorChanged;
+        private int index;
+        private long time;
+        private long delta;
+        private int latency;
+        private int status;
+        private int error;
+
+        Reader(Long appId, ByteBuffer in) {
+            this.appId = appId;
+            this.count = (int) readVarLong(in);
+            this.time = unzigzag(readVarLong(in));
+            this.times = section(in, (int) readVarLong(in));
+            this.latencies = section(in, (int) readVarLong(in));
+            this.statuses = section(in, (int) readVarLong(in));
+            this.errors = section(in, (int) readVarLong(in));
+            int bitBytes = (count + 7) / 8;
+            this.upBits = section(in, bitBytes);
+            this.statusChanged = section(in, bitBytes);
+            this.errorChanged = section(in, bitBytes);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < count;
+        }
+
+        @Override
+        public StatusCheck next() {
+            if (index >= count) {
+                throw new NoSuchElementException();
+            }
+            int i = index++;
+            if (i > 0) {
+                delta += unzigzag(readVarLong(times));
+                time += delta;
+            }
+            latency ^= (int) readVarLong(latencies);
+            if (bit(statusChanged, i)) {
+                status = (int) unzigzag(readVarLong(statuses));
+            }
+            if (bit(errorChanged, i)) {
+                error = (int) unzigzag(readVarLong(errors));
+            }
+            return StatusCheck.builder()
+                    .appId(appId)
+                    .checkedAt(fromMillis(time))
+                    .isUp(bit(upBits, i))
+                    .responseTimeMs(latency == 0 ? null : latency - 1)
+                    .statusCode(status == 0 ? null : status - 1)
+                    .errorCode(error == 0 ? null : (short) (error - 1))
+                    .build();
+        }
+
+        private static ByteBuffer section(ByteBuffer in, int length) {
+            ByteBuffer section = in.slice(in.position(), length);
+            in.position(in.position() + length);
+            return section;
+        }
+
+        private static boolean bit(ByteBuffer bits, int i) {
+            return (bits.get(i >> 3) & (1 << (i & 7))) != 0;
+        }
+    }
+
+    // --- PRIMITIVES ---
+
+    private static void writeSection(ByteArrayOutputStream out, byte[] section) {
+        writeVarLong(out, section.length);
+        out.writeBytes(section);
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public static long toMillis(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    static LocalDateTime fromMillis(long millis) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000), (int) Math.floorMod(millis, 1000) * 1_000_000, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,36 @@
+package org.azirar.glenn.repositories;
+
+import org.azirar.glenn.models.ArchivedChecks;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Repository
+public interface ArchivedChecksRepository extends R2dbcRepository<ArchivedChecks, Long> {
+
+    // Lots qui chevauchent [from, to), dans l'ordre chronologique
+    @Query("SELECT * FROM status_check_archive WHERE app_id = :appId AND last_at >= :from AND first_at < :to " +
+            "ORDER BY first_at")
+    Flux<ArchivedChecks> findOverlapping(Long appId, LocalDateTime from, LocalDateTime to);
+
+    // Verrou transactionnel par application : deux archivages concurrents (autre instance, passage
+    // manuel) ne peuvent pas créer chacun le lot d'un même jour
+    @Query("SELECT 1 FROM (SELECT pg_advisory_xact_lock(hashtext('status_check_archive'), " +
+            "hashtext(CAST(:appId AS TEXT)))) AS locked")
+    Mono<Integer> lockApp(Long appId);
+
+    // Lot du jour (plusieurs pour les données archivées avant la fusion par jour)
+    Flux<ArchivedChecks> findByAppIdAndDayOrderById(Long appId, LocalDate day);
+
+    Mono<Void> deleteByAppId(Long appId);
+
+    @Modifying
+    @Query("DELETE FROM status_check_archive WHERE day < :cutoff")
+    Mono<Integer> deleteOlderThan(LocalDate cutoff);
+}
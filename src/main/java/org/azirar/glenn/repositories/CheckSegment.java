@@ -0,0 +1,226 @@
+package org.azirar.glenn.repositories;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Fichier segment du stockage embarqué, projeté en mémoire et écrit en ajout seul.
+ * <p>
+ * En-tête : magic, version, début de la fenêtre de temps. Puis des enregistrements
+ * {@code [longueur][crc32c][contenu]} ; une longueur nulle marque la fin des données
+ * (le fichier est pré-alloué à zéro). Au démarrage, la lecture s'arrête au premier
+ * enregistrement incomplet ou corrompu : c'est un reste d'écriture interrompue.
+ * Les segments de la version 1 restent lisibles, mais on n'y ajoute plus rien.
+ */
+@Slf4j
+final class CheckSegment {
+
+    static final int HEADER_SIZE = 32;
+    static final int RECORD_OVERHEAD = 8;
+    static final int MAX_PAYLOAD = 16384;
+
+    private static final int MAGIC = 0x474C4E53; // "GLNS"
+    static final int VERSION = 2; // 2 : code d'erreur et temps de réponse numériques
+    static final int LEGACY_VERSION = 1; // 1 : nom, temps de réponse et message en texte
+    private static final String PREFIX = "segment-";
+    private static final String SUFFIX = ".dat";
+
+    private final long sequence;
+    private final int version;
+    private final Path path;
+    private final long windowStart;
+    private final MappedByteBuffer buffer;
+    private int writePosition;
+    private int live;
+    private int tombstones;
+
+    private CheckSegment(long sequence, int version, Path path, long windowStart, MappedByteBuffer buffer, int writePosition) {
+        this.sequence = sequence;
+        this.version = version;
+        this.path = path;
+        this.windowStart = windowStart;
+        this.buffer = buffer;
+        this.writePosition = writePosition;
+    }
+
+    /**
+     * Crée un segment vide de {@code size} octets pour la fenêtre commençant à {@code windowStart}
+     */
+    static CheckSegment create(Path directory, long sequence, long windowStart, int size) throws IOException {
+        Path path = directory.resolve(String.format("%s%016d%s", PREFIX, sequence, SUFFIX));
+        MappedByteBuffer buffer = map(path, size, true);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putLong(8, windowStart);
+        buffer.force(0, HEADER_SIZE);
+        return new CheckSegment(sequence, VERSION, path, windowStart, buffer, HEADER_SIZE);
+    }
+
+    /**
+     * Ouvre un segment existant ; retourne null si le fichier n'est pas un segment lisible
+     * (en-tête invalide ou version inconnue)
+     */
+    static CheckSegment open(Path path) throws IOException {
+        long size = Files.size(path);
+        if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+            return null;
+        }
+        MappedByteBuffer buffer = map(path, (int) size, false);
+        int version = buffer.getInt(4);
+        if (buffer.getInt(0) != MAGIC || (version != VERSION && version != LEGACY_VERSION)) {
+            return null;
+        }
+        return new CheckSegment(sequenceOf(path), version, path, buffer.getLong(8), buffer, HEADER_SIZE);
+    }
+
+    /**
+     * Rejoue les enregistrements valides dans {@code visitor} et place la position d'écriture après le dernier
+     */
+    void recover(RecordVisitor visitor) {
+        CRC32C crc = new CRC32C();
+        int position = HEADER_SIZE;
+        while (position + RECORD_OVERHEAD <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || length > MAX_PAYLOAD || position + RECORD_OVERHEAD + length > buffer.capacity()) {
+                break;
+            }
+            ByteBuffer payload = buffer.slice(position + RECORD_OVERHEAD, length);
+            crc.reset();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+                break;
+            }
+            visitor.visit(this, position, payload);
+            position += RECORD_OVERHEAD + length;
+        }
+        writePosition = position;
+
+        if (position + 4 <= buffer.capacity() && buffer.getInt(position) != 0) {
+            // Écriture interrompue : on efface la fin pour que le prochain ajout reparte proprement
+            log.warn("⚠️ Segment {}: torn record at offset {} discarded", path.getFileName(), position);
+            int end = Math.min(buffer.capacity(), position + RECORD_OVERHEAD + MAX_PAYLOAD);
+            for (int i = position; i < end; i++) {
+                buffer.put(i, (byte) 0);
+            }
+            buffer.force(position, end - position);
+        }
+    }
+
+    static boolean isSegmentFile(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+    }
+
+    static long sequenceOf(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    /**
+     * Ajoute un enregistrement ; retourne sa position, ou -1 si le segment est plein
+     */
+    int append(ByteBuffer payload, CRC32C crc) {
+        int length = payload.remaining();
+        if (writePosition + RECORD_OVERHEAD + length + 4 > buffer.capacity()) {
+            return -1;
+        }
+        crc.reset();
+        crc.update(payload.duplicate());
+        int position = writePosition;
+        buffer.put(position + RECORD_OVERHEAD, payload, payload.position(), length);
+        buffer.putInt(position + 4, (int) crc.getValue());
+        // La longueur en dernier : un enregistrement n'est visible qu'une fois complet
+        buffer.putInt(position, length);
+        writePosition = position + RECORD_OVERHEAD + length;
+        return position;
+    }
+
+    /**
+     * Contenu de l'enregistrement à {@code position}
+     */
+    ByteBuffer read(int position) {
+        return buffer.slice(position + RECORD_OVERHEAD, buffer.getInt(position));
+    }
+
+    /**
+     * Force sur disque les octets {@code [from, to)} ; sans verrou, les ajouts suivants n'écrivent qu'après {@code to}
+     */
+    void force(int from, int to) {
+        if (to > from) {
+            buffer.force(from, to - from);
+        }
+    }
+
+    void delete() throws IOException {
+        // Le mapping est libéré par le GC ; le fichier peut être supprimé dès maintenant
+        Files.deleteIfExists(path);
+    }
+
+    long sequence() {
+        return sequence;
+    }
+
+    int version() {
+        return version;
+    }
+
+    boolean isLegacy() {
+        return version == LEGACY_VERSION;
+    }
+
+    long windowStart() {
+        return windowStart;
+    }
+
+    Path path() {
+        return path;
+    }
+
+    int writePosition() {
+        return writePosition;
+    }
+
+    int live() {
+        return live;
+    }
+
+    void retain() {
+        live++;
+    }
+
+    void release() {
+        live--;
+    }
+
+    // Un segment qui porte des suppressions d'application doit survivre aux segments plus anciens
+    void markTombstone() {
+        tombstones++;
+    }
+
+    boolean hasTombstones() {
+        return tombstones > 0;
+    }
+
+    private static MappedByteBuffer map(Path path, int size, boolean create) throws IOException {
+        StandardOpenOption[] options = create
+                ? new StandardOpenOption[]{StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE}
+                : new StandardOpenOption[]{StandardOpenOption.READ, StandardOpenOption.WRITE};
+        try (FileChannel channel = FileChannel.open(path, options)) {
+            // Le mapping reste valide après la fermeture du canal
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    @FunctionalInterface
+    interface RecordVisitor {
+        void visit(CheckSegment segment, int position, ByteBuffer payload);
+    }
+}
@@ -0,0 +1,723 @@
+package org.azirar.glenn.repositories;
+
+import lombok.extern.slf4j.Slf4j;
+import org.azirar.glenn.models.ErrorKind;
+import org.azirar.glenn.models.StatusCheck;
+import org.azirar.glenn.models.StorageStats;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.LongConsumer;
+import java.util.function.LongPredicate;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Historique des checks sans base de données : les checks sont ajoutés à des segments
+ * projetés en mémoire (un par fenêtre de temps), et un index compact par application
+ * (horodatage, position) sert l'historique et le dernier statut.
+ * <p>
+ * La rétention supprime des segments entiers : expirés, ou dont plus aucun check n'est indexé
+ * (plafond {@code monitoring.history} par application). La suppression d'une application est
+ * un enregistrement « tombstone » rejoué au démarrage. Les écritures sont forcées sur disque
+ * à chaque lot, hors du verrou : une synchronisation lente ne bloque pas les lectures, qui
+ * relèvent les références sous le verrou et décodent les checks en dehors.
+ * Au redémarrage, un enregistrement incomplet en fin de segment est ignoré.
+ */
+@Slf4j
+public class EmbeddedStatusStore implements StatusStore, AutoCloseable {
+
+    private static final byte TYPE_CHECK = 1;
+    private static final byte TYPE_DELETE_APP = 2;
+    private static final int DETAIL_OFFSET = 36;
+    private static final int LEGACY_STRINGS_OFFSET = 30;
+    private static final int MAX_DETAIL_BYTES = 4096;
+    private static final int MIN_SEGMENT_SIZE = 1024 * 1024;
+
+    private final Path directory;
+    private final long segmentWindow;
+    private final int segmentSize;
+    private final long retentionMillis;
+    private final int maxHistoryPerApp;
+
+    private final NavigableMap<Long, CheckSegment> segments = new TreeMap<>();
+    private final Map<Long, AppHistory> histories = new HashMap<>();
+    private final ByteBuffer encodeBuffer = ByteBuffer.allocate(CheckSegment.MAX_PAYLOAD);
+    private final CRC32C crc = new CRC32C();
+    // Plages écrites mais pas encore forcées, y compris celles des segments quittés par roll()
+    private final List<Flush> unforced = new ArrayList<>();
+    private CheckSegment active;
+    private int unforcedFrom;
+    private long nextId = 1;
+    // Plus haut numéro de segment sur disque, lisible ou non : un nouveau segment ne le réutilise pas
+    private long lastSequence;
+    private long total;
+    private long records;
+    private long recordBytes;
+
+    private record Flush(CheckSegment segment, int from, int to) {
+    }
+
+    private record Refs(long[] refs, CheckSegment[] segments) {
+        static final Refs EMPTY = new Refs(new long[0], new CheckSegment[0]);
+    }
+
+    public EmbeddedStatusStore(Path directory, long segmentWindow, int segmentSize,
+                               long retentionMillis, int maxHistoryPerApp) throws IOException {
+        if (segmentSize < MIN_SEGMENT_SIZE) {
+            throw new IllegalArgumentException("storage.embedded.segment-size must be at least " + MIN_SEGMENT_SIZE);
+        }
+        this.directory = directory;
+        this.segmentWindow = segmentWindow;
+        this.segmentSize = segmentSize;
+        this.retentionMillis = retentionMillis;
+        this.maxHistoryPerApp = maxHistoryPerApp;
+        Files.createDirectories(directory);
+        recover();
+    }
+
+    // --- ÉCRITURE ---
+
+    @Override
+    public Mono<StatusCheck> save(StatusCheck check) {
+        return saveAll(List.of(check)).next();
+    }
+
+    @Override
+    public Flux<StatusCheck> saveAll(List<StatusCheck> checks) {
+        return Mono.fromCallable(() -> {
+                    force(append(checks));
+                    return checks;
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMapIterable(saved -> saved);
+    }
+
+    /**
+     * Ajoute et indexe les checks ; retourne les plages à forcer, une fois le verrou rendu
+     */
+    private synchronized List<Flush> append(List<StatusCheck> checks) throws IOException {
+        for (StatusCheck check : checks) {
+            if (check.getId() == null) {
+                check.setId(nextId++);
+            }
+            if (check.getCheckedAt() == null) {
+                check.setCheckedAt(LocalDateTime.now());
+            }
+            long ref = write(encodeCheck(check));
+            AppHistory history = index(check.getAppId(), toMicros(check.getCheckedAt()), ref);
+            if (history.latest == null || !check.getCheckedAt().isBefore(history.latest.getCheckedAt())) {
+                history.latest = check.toBuilder().build();
+            }
+        }
+        return takeUnforced();
+    }
+
+    @Override
+    public Mono<Integer> deleteOldChecksForApp(Long appId, int keepCount) {
+        return Mono.fromCallable(() -> trim(appId, keepCount))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private synchronized int trim(Long appId, int keepCount) {
+        AppHistory history = histories.get(appId);
+        int deleted = 0;
+        while (history != null && history.size() > keepCount) {
+            release(history.removeOldest());
+            deleted++;
+        }
+        sweepDeadSegments();
+        return deleted;
+    }
+
+    @Override
+    public Mono<Integer> deleteChecks(Long appId, Collection<Long> ids) {
+        Set<Long> targets = Set.copyOf(ids);
+        return Mono.fromCallable(() -> deleteChecks(appId, targets))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private synchronized int deleteChecks(Long appId, Set<Long> ids) {
+        AppHistory history = histories.get(appId);
+        if (history == null || ids.isEmpty()) {
+            return 0;
+        }
+        int deleted = history.removeIf(ref -> ids.contains(idOf(ref)), this::release);
+        if (history.size() == 0) {
+            histories.remove(appId);
+        }
+        sweepDeadSegments();
+        return deleted;
+    }
+
+    // Identifiant du check, au même emplacement dans les deux versions d'enregistrement
+    private long idOf(long ref) {
+        CheckSegment segment = segments.get(ref >>> 32);
+        return segment != null ? segment.read((int) ref).getLong(9) : -1;
+    }
+
+    @Override
+    public Mono<Void> deleteByAppId(Long appId) {
+        return Mono.fromRunnable(() -> {
+                    // Tombstone sur disque avant de supprimer des segments : sinon un redémarrage ferait réapparaître l'application
+                    force(writeTombstone(appId));
+                    forgetApp(appId);
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .then();
+    }
+
+    private synchronized List<Flush> writeTombstone(Long appId) {
+        try {
+            encodeBuffer.clear();
+            encodeBuffer.put(TYPE_DELETE_APP).putLong(appId).flip();
+            long ref = write(encodeBuffer);
+            segments.get(ref >>> 32).markTombstone();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return takeUnforced();
+    }
+
+    private synchronized void forgetApp(Long appId) {
+        dropApp(appId);
+        sweepDeadSegments();
+    }
+
+    /**
+     * Ajoute un enregistrement au segment courant, en changeant de segment à la fin
+     * de la fenêtre de temps ou quand il est plein. Retourne la référence (séquence, position).
+     */
+    private long write(ByteBuffer payload) throws IOException {
+        long now = System.currentTimeMillis();
+        if (active == null || now >= active.windowStart() + segmentWindow) {
+            roll(now);
+        }
+        int length = payload.remaining();
+        int position = active.append(payload, crc);
+        if (position < 0) {
+            roll(now);
+            position = active.append(payload, crc);
+        }
+        records++;
+        recordBytes += CheckSegment.RECORD_OVERHEAD + length;
+        return (active.sequence() << 32) | position;
+    }
+
+    private void roll(long now) throws IOException {
+        if (active != null) {
+            unforced.add(new Flush(active, unforcedFrom, active.writePosition()));
+        }
+        long sequence = ++lastSequence;
+        active = CheckSegment.create(directory, sequence, now - now % segmentWindow, segmentSize);
+        segments.put(sequence, active);
+        unforcedFrom = active.writePosition();
+        log.debug("🗂️ New check segment {}", active.path().getFileName());
+        purgeExpired(now);
+    }
+
+    /**
+     * Relève les plages écrites depuis le dernier relevé ; appelé sous le verrou
+     */
+    private List<Flush> takeUnforced() {
+        if (active != null && active.writePosition() > unforcedFrom) {
+            unforced.add(new Flush(active, unforcedFrom, active.writePosition()));
+            unforcedFrom = active.writePosition();
+        }
+        List<Flush> taken = List.copyOf(unforced);
+        unforced.clear();
+        return taken;
+    }
+
+    /**
+     * Force les plages hors du verrou ; un segment supprimé entre-temps reste projeté jusqu'au GC
+     */
+    private static void force(List<Flush> flushes) {
+        for (Flush flush : flushes) {
+            flush.segment().force(flush.from(), flush.to());
+        }
+    }
+
+    // --- LECTURE ---
+
+    @Override
+    public Flux<StatusCheck> findLatestStatusForAllApps() {
+        return Flux.defer(() -> Flux.fromIterable(latest(null)));
+    }
+
+    @Override
+    public Flux<StatusCheck> findLatestForApps(Collection<Long> appIds) {
+        return Flux.defer(() -> Flux.fromIterable(latest(appIds)));
+    }
+
+    private synchronized List<StatusCheck> latest(Collection<Long> appIds) {
+        List<StatusCheck> result = new ArrayList<>();
+        if (appIds == null) {
+            histories.values().forEach(history -> addLatest(history, result));
+        } else {
+            appIds.forEach(appId -> addLatest(histories.get(appId), result));
+        }
+        return result;
+    }
+
+    private static void addLatest(AppHistory history, List<StatusCheck> result) {
+        if (history != null && history.latest != null) {
+            result.add(history.latest.toBuilder().build());
+        }
+    }
+
+    @Override
+    public Flux<StatusCheck> findHistory(Long appId, int limit) {
+        return read(appId, limit, true);
+    }
+
+    @Override
+    public Flux<StatusCheck> findOldest(Long appId, int limit) {
+        return read(appId, limit, false);
+    }
+
+    /**
+     * Décodage hors du verrou et hors de la boucle d'événements : la lecture des segments peut toucher le disque
+     */
+    private Flux<StatusCheck> read(Long appId, int limit, boolean newestFirst) {
+        return Mono.fromCallable(() -> decodeAll(refs(appId, limit, newestFirst)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMapIterable(checks -> checks);
+    }
+
+    private synchronized Refs refs(Long appId, int limit, boolean newestFirst) {
+        AppHistory history = histories.get(appId);
+        if (history == null) {
+            return Refs.EMPTY;
+        }
+        int count = Math.min(limit, history.size());
+        long[] refs = new long[count];
+        CheckSegment[] owners = new CheckSegment[count];
+        for (int n = 0; n < count; n++) {
+            refs[n] = history.refs[newestFirst ? history.end - 1 - n : history.start + n];
+            owners[n] = segments.get(refs[n] >>> 32);
+        }
+        return new Refs(refs, owners);
+    }
+
+    private static List<StatusCheck> decodeAll(Refs snapshot) {
+        List<StatusCheck> result = new ArrayList<>(snapshot.refs().length);
+        for (int n = 0; n < snapshot.refs().length; n++) {
+            StatusCheck check = decode(snapshot.segments()[n], snapshot.refs()[n]);
+            if (check != null) {
+                result.add(check);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Flux<Long> findDistinctAppIds() {
+        return Flux.defer(() -> {
+            synchronized (this) {
+                return Flux.fromIterable(List.copyOf(histories.keySet()));
+            }
+        });
+    }
+
+    @Override
+    public Mono<Long> countByAppId(Long appId) {
+        return Mono.fromCallable(() -> {
+            synchronized (this) {
+                AppHistory history = histories.get(appId);
+                return history == null ? 0L : (long) history.size();
+            }
+        });
+    }
+
+    @Override
+    public Mono<Long> countAll() {
+        return Mono.fromCallable(() -> {
+            synchronized (this) {
+                return total;
+            }
+        });
+    }
+
+    @Override
+    public boolean sharesDatabase() {
+        return false;
+    }
+
+    @Override
+    public Mono<StorageStats> storageStats() {
+        return Mono.fromCallable(() -> {
+            synchronized (this) {
+                long totalBytes = 0;
+                for (CheckSegment segment : segments.values()) {
+                    totalBytes += segment.writePosition();
+                }
+                return new StorageStats("embedded", total, totalBytes,
+                        total > 0 ? (double) totalBytes / total : null,
+                        records > 0 ? (double) recordBytes / records : null);
+            }
+        });
+    }
+
+    @Override
+    public synchronized void close() {
+        force(takeUnforced());
+        log.info("🗂️ Embedded check store closed ({} checks in {} segments)", total, segments.size());
+    }
+
+    // --- INDEX ---
+
+    private AppHistory index(Long appId, long micros, long ref) {
+        AppHistory history = histories.computeIfAbsent(appId, id -> new AppHistory());
+        history.add(micros, ref);
+        segments.get(ref >>> 32).retain();
+        total++;
+        while (history.size() > maxHistoryPerApp) {
+            release(history.removeOldest());
+        }
+        return history;
+    }
+
+    private void release(long ref) {
+        CheckSegment segment = segments.get(ref >>> 32);
+        if (segment != null) {
+            segment.release();
+        }
+        total--;
+    }
+
+    private void dropApp(Long appId) {
+        AppHistory history = histories.remove(appId);
+        while (history != null && history.size() > 0) {
+            release(history.removeOldest());
+        }
+    }
+
+    /**
+     * Supprime les segments dont plus aucun check n'est indexé. Un segment portant des suppressions
+     * d'application n'est supprimé qu'une fois devenu le plus ancien, sinon le démarrage suivant
+     * ferait réapparaître les checks de l'application.
+     */
+    private void sweepDeadSegments() {
+        boolean oldest = true;
+        Iterator<CheckSegment> iterator = segments.values().iterator();
+        while (iterator.hasNext()) {
+            CheckSegment segment = iterator.next();
+            if (segment != active && segment.live() <= 0 && (oldest || !segment.hasTombstones())) {
+                iterator.remove();
+                deleteFile(segment);
+            } else {
+                oldest = false;
+            }
+        }
+    }
+
+    /**
+     * Supprime les segments dont la fenêtre est plus ancienne que la rétention, puis les entrées d'index qui y pointent
+     */
+    private void purgeExpired(long now) {
+        long cutoff = now - retentionMillis;
+        long lastExpired = -1;
+        while (!segments.isEmpty()) {
+            CheckSegment oldest = segments.firstEntry().getValue();
+            if (oldest == active || oldest.windowStart() + segmentWindow > cutoff) {
+                break;
+            }
+            segments.pollFirstEntry();
+            deleteFile(oldest);
+            lastExpired = oldest.sequence();
+        }
+        if (lastExpired < 0) {
+            return;
+        }
+        Iterator<AppHistory> iterator = histories.values().iterator();
+        while (iterator.hasNext()) {
+            AppHistory history = iterator.next();
+            while (history.size() > 0 && (history.refs[history.start] >>> 32) <= lastExpired) {
+                history.removeOldest();
+                total--;
+            }
+            if (history.size() == 0) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private void deleteFile(CheckSegment segment) {
+        try {
+            segment.delete();
+            log.debug("🗑️ Check segment {} deleted", segment.path().getFileName());
+        } catch (IOException e) {
+            log.warn("⚠️ Cannot delete check segment {}: {}", segment.path(), e.getMessage());
+        }
+    }
+
+    // --- RÉCUPÉRATION ---
+
+    private void recover() throws IOException {
+        long start = System.currentTimeMillis();
+        List<Path> files;
+        try (Stream<Path> list = Files.list(directory)) {
+            files = list.filter(CheckSegment::isSegmentFile)
+                    .sorted(Comparator.comparingLong(CheckSegment::sequenceOf))
+                    .toList();
+        }
+        for (Path file : files) {
+            lastSequence = Math.max(lastSequence, CheckSegment.sequenceOf(file));
+            CheckSegment segment = CheckSegment.open(file);
+            if (segment == null) {
+                // Écarté sous un autre nom : il n'est plus relu, mais reste disponible
+                Path aside = file.resolveSibling(file.getFileName() + ".unreadable");
+                Files.move(file, aside, StandardCopyOption.REPLACE_EXISTING);
+                log.warn("⚠️ {} is not a readable check segment, moved to {}", file.getFileName(), aside.getFileName());
+                continue;
+            }
+            segments.put(segment.sequence(), segment);
+            segment.recover(this::replay);
+        }
+        for (AppHistory history : histories.values()) {
+            for (int i = history.end - 1; i >= history.start && history.latest == null; i--) {
+                history.latest = decode(segments.get(history.refs[i] >>> 32), history.refs[i]);
+            }
+        }
+        // Le dernier segment redevient le segment courant s'il est encore dans sa fenêtre et au format courant
+        long now = System.currentTimeMillis();
+        if (!segments.isEmpty() && !segments.lastEntry().getValue().isLegacy()
+                && now < segments.lastEntry().getValue().windowStart() + segmentWindow) {
+            active = segments.lastEntry().getValue();
+            unforcedFrom = active.writePosition();
+        }
+        purgeExpired(now);
+        sweepDeadSegments();
+        log.info("🗂️ Embedded check store recovered: {} checks, {} apps, {} segments in {} ms",
+                total, histories.size(), segments.size(), System.currentTimeMillis() - start);
+    }
+
+    private void replay(CheckSegment segment, int position, ByteBuffer payload) {
+        records++;
+        recordBytes += CheckSegment.RECORD_OVERHEAD + payload.remaining();
+        long appId = payload.getLong(1);
+        if (payload.get(0) == TYPE_DELETE_APP) {
+            segment.markTombstone();
+            dropApp(appId);
+            return;
+        }
+        nextId = Math.max(nextId, payload.getLong(9) + 1);
+        index(appId, payload.getLong(17), (segment.sequence() << 32) | position);
+    }
+
+    // --- ENCODAGE ---
+
+    private ByteBuffer encodeCheck(StatusCheck check) {
+        encodeBuffer.clear();
+        encodeBuffer.put(TYPE_CHECK)
+                .putLong(check.getAppId())
+                .putLong(check.getId())
+                .putLong(toMicros(check.getCheckedAt()))
+                .putInt(check.getStatusCode() == null ? Integer.MIN_VALUE : check.getStatusCode())
+                .put(check.getIsUp() == null ? (byte) 2 : (byte) (check.getIsUp() ? 1 : 0))
+                .putInt(check.getResponseTimeMs() == null ? Integer.MIN_VALUE : check.getResponseTimeMs())
+                .putShort(check.getErrorCode() == null ? -1 : check.getErrorCode());
+        putString(check.getErrorDetail(), MAX_DETAIL_BYTES);
+        return encodeBuffer.flip();
+    }
+
+    private static StatusCheck decode(CheckSegment segment, long ref) {
+        if (segment == null) {
+            return null;
+        }
+        ByteBuffer payload = segment.read((int) ref);
+        if (segment.isLegacy()) {
+            return decodeLegacy(payload);
+        }
+        int statusCode = payload.getInt(25);
+        byte isUp = payload.get(29);
+        int responseTimeMs = payload.getInt(30);
+        short errorCode = payload.getShort(34);
+        payload.position(DETAIL_OFFSET);
+        return StatusCheck.builder()
+                .appId(payload.getLong(1))
+                .id(payload.getLong(9))
+                .checkedAt(fromMicros(payload.getLong(17)))
+                .statusCode(statusCode == Integer.MIN_VALUE ? null : statusCode)
+                .isUp(isUp == 2 ? null : isUp == 1)
+                .responseTimeMs(responseTimeMs == Integer.MIN_VALUE ? null : responseTimeMs)
+                .errorCode(errorCode < 0 ? null : errorCode)
+                .errorDetail(getString(payload))
+                .build();
+    }
+
+    /**
+     * Enregistrement de la version 1 : nom, temps de réponse et message en texte, convertis
+     * comme le fait la migration SQL (libellé ErrorKind reconnu, sinon UNKNOWN avec le message en détail)
+     */
+    private static StatusCheck decodeLegacy(ByteBuffer payload) {
+        int statusCode = payload.getInt(25);
+        byte isUp = payload.get(29);
+        payload.position(LEGACY_STRINGS_OFFSET);
+        String appName = getString(payload);
+        String responseTime = getString(payload);
+        String errorMessage = getString(payload);
+        StatusCheck check = StatusCheck.builder()
+                .appId(payload.getLong(1))
+                .id(payload.getLong(9))
+                .checkedAt(fromMicros(payload.getLong(17)))
+                .statusCode(statusCode == Integer.MIN_VALUE ? null : statusCode)
+                .isUp(isUp == 2 ? null : isUp == 1)
+                .appName(appName)
+                .responseTimeMs(parseLeadingInt(responseTime))
+                .build();
+        if (errorMessage != null) {
+            ErrorKind kind = ErrorKind.UNKNOWN;
+            String detail = errorMessage;
+            for (ErrorKind candidate : ErrorKind.values()) {
+                if (errorMessage.equals(candidate.label())) {
+                    kind = candidate;
+                    detail = null;
+                    break;
+                }
+                if (errorMessage.startsWith(candidate.label() + ": ")) {
+                    kind = candidate;
+                    detail = errorMessage.substring(candidate.label().length() + 2);
+                    break;
+                }
+            }
+            check.setError(kind, detail);
+        }
+        return check;
+    }
+
+    // "123ms" → 123 ; null si le texte ne commence pas par un nombre
+    private static Integer parseLeadingInt(String value) {
+        if (value == null) {
+            return null;
+        }
+        int end = 0;
+        while (end < value.length() && end < 9 && Character.isDigit(value.charAt(end))) {
+            end++;
+        }
+        return end == 0 ? null : Integer.parseInt(value.substring(0, end));
+    }
+
+    private void putString(String value, int maxBytes) {
+        if (value == null) {
+            encodeBuffer.putShort((short) -1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int length = bytes.length;
+        if (length > maxBytes) {
+            // Coupe sur une frontière de caractère UTF-8
+            length = maxBytes;
+            while (length > 0 && (bytes[length] & 0xC0) == 0x80) {
+                length--;
+            }
+        }
+        encodeBuffer.putShort((short) length).put(bytes, 0, length);
+    }
+
+    private static String getString(ByteBuffer payload) {
+        short length = payload.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        payload.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long toMicros(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + time.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000),
+                (int) Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC);
+    }
+
+    /**
+     * Checks indexés d'une application, triés par horodatage (tableaux parallèles compactés à la demande)
+     */
+    private static final class AppHistory {
+        private long[] times = new long[16];
+        private long[] refs = new long[16];
+        private int start;
+        private int end;
+        private StatusCheck latest;
+
+        int size() {
+            return end - start;
+        }
+
+        void add(long time, long ref) {
+            if (end == times.length) {
+                compact();
+            }
+            int i = end++;
+            // Insertion triée : les résultats d'agents peuvent arriver légèrement en retard
+            while (i > start && times[i - 1] > time) {
+                times[i] = times[i - 1];
+                refs[i] = refs[i - 1];
+                i--;
+            }
+            times[i] = time;
+            refs[i] = ref;
+        }
+
+        long removeOldest() {
+            return refs[start++];
+        }
+
+        /**
+         * Retire les références retenues par {@code matches}, en gardant l'ordre des autres
+         */
+        int removeIf(LongPredicate matches, LongConsumer removed) {
+            int kept = start;
+            for (int i = start; i < end; i++) {
+                if (matches.test(refs[i])) {
+                    removed.accept(refs[i]);
+                } else {
+                    times[kept] = times[i];
+                    refs[kept] = refs[i];
+                    kept++;
+                }
+            }
+            int count = end - kept;
+            end = kept;
+            return count;
+        }
+
+        private void compact() {
+            int size = size();
+            int capacity = size * 2 > times.length ? times.length * 2 : times.length;
+            long[] newTimes = new long[capacity];
+            long[] newRefs = new long[capacity];
+            System.arraycopy(times, start, newTimes, 0, size);
+            System.arraycopy(refs, start, newRefs, 0, size);
+            times = newTimes;
+            refs = newRefs;
+            start = 0;
+            end = size;
+        }
+    }
+}
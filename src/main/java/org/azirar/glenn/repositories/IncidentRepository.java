@@ -0,0 +1,71 @@
+package org.azirar.glenn.repositories;
+
+import org.azirar.glenn.models.Incident;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface IncidentRepository extends R2dbcRepository<Incident, Long> {
+
+    // Check DOWN : ouvre l'incident de l'application, ou incrémente celui en cours.
+    // Si la dépendance amont a un incident ouvert, celui-ci y est rattaché.
+    @Modifying
+    @Query("INSERT INTO incidents (app_id, started_at, first_error, check_count, last_check_at, parent_incident_id) " +
+            "VALUES (:appId, :checkedAt, :error, 1, :checkedAt, " +
+            "(SELECT p.id FROM incidents p JOIN monitored_apps a ON a.parent_app_id = p.app_id " +
+            "WHERE a.id = :appId AND p.ended_at IS NULL)) " +
+            "ON CONFLICT (app_id) WHERE ended_at IS NULL " +
+            "DO UPDATE SET check_count = incidents.check_count + 1, last_check_at = EXCLUDED.last_check_at, " +
+            "parent_incident_id = COALESCE(incidents.parent_incident_id, EXCLUDED.parent_incident_id)")
+    Mono<Integer> recordDown(Long appId, LocalDateTime checkedAt, String error);
+
+    // Check UP : ferme l'incident en cours s'il existe
+    @Modifying
+    @Query("UPDATE incidents SET ended_at = :checkedAt WHERE app_id = :appId AND ended_at IS NULL")
+    Mono<Integer> closeOpen(Long appId, LocalDateTime checkedAt);
+
+    // Incidents qui chevauchent [from, to)
+    @Query("SELECT * FROM incidents WHERE app_id = :appId AND started_at < :to " +
+            "AND (ended_at IS NULL OR ended_at > :from) ORDER BY started_at")
+    Flux<Incident> findOverlapping(Long appId, LocalDateTime from, LocalDateTime to);
+
+    @Query("SELECT * FROM incidents WHERE ended_at IS NULL ORDER BY started_at")
+    Flux<Incident> findOpen();
+
+    Mono<Void> deleteByAppId(Long appId);
+
+    // Incidents regroupés sous un incident amont
+    Flux<Incident> findByParentIncidentIdOrderByStartedAt(Long parentIncidentId);
+
+    /**
+     * Reconstruit les incidents d'une application depuis status_checks (gaps and islands) :
+     * chaque suite de checks DOWN consécutifs devient un incident, fermé par le premier check UP suivant.
+     * Les incidents existants de l'application doivent avoir été supprimés avant.
+     */
+    @Modifying
+    @Query("WITH flips AS (" +
+            "  SELECT s.id, s.checked_at, COALESCE(s.is_up, FALSE) AS up, " +
+            "  COALESCE(k.label || COALESCE(': ' || NULLIF(s.error_detail, ''), ''), s.error_detail) AS error_message, " +
+            "  CASE WHEN COALESCE(s.is_up, FALSE) IS DISTINCT FROM lag(COALESCE(s.is_up, FALSE)) OVER (ORDER BY s.checked_at, s.id) " +
+            "  THEN 1 ELSE 0 END AS flip " +
+            "  FROM status_checks s LEFT JOIN error_kinds k ON k.code = s.error_code WHERE s.app_id = :appId" +
+            "), islands AS (" +
+            "  SELECT *, sum(flip) OVER (ORDER BY checked_at, id) AS island FROM flips" +
+            "), runs AS (" +
+            "  SELECT island, bool_and(up) AS up, min(checked_at) AS started_at, max(checked_at) AS last_check_at, " +
+            "  count(*) AS check_count, (array_agg(error_message ORDER BY checked_at, id))[1] AS first_error " +
+            "  FROM islands GROUP BY island" +
+            "), bounded AS (" +
+            "  SELECT *, lead(started_at) OVER (ORDER BY started_at) AS ended_at FROM runs" +
+            ") " +
+            "INSERT INTO incidents (app_id, started_at, ended_at, first_error, check_count, last_check_at) " +
+            "SELECT :appId, started_at, ended_at, first_error, check_count, last_check_at FROM bounded WHERE NOT up " +
+            "ON CONFLICT DO NOTHING")
+    Mono<Integer> rebuildForApp(Long appId);
+}
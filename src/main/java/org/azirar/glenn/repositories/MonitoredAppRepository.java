@@ -1,12 +1,15 @@
 package org.azirar.glenn.repositories;
 
 import org.azirar.glenn.models.MonitoredApp;
+import org.springframework.data.r2dbc.repository.Modifying;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDateTime;
+
 @Repository
 public interface MonitoredAppRepository extends R2dbcRepository<MonitoredApp, Long> {
 
@@ -14,9 +17,16 @@ public interface MonitoredAppRepository extends R2dbcRepository<MonitoredApp, Lo
 
     Flux<MonitoredApp> findByCategory(String category);
 
+    Flux<MonitoredApp> findByParentAppId(Long parentAppId);
+
     @Query("SELECT * FROM monitored_apps WHERE active = true ORDER BY name")
     Flux<MonitoredApp> findAllActiveOrdered();
 
     @Query("SELECT DISTINCT category FROM monitored_apps WHERE category IS NOT NULL")
     Flux<String> findAllCategories();
+
+    // État de notification seul : les autres colonnes, éventuellement modifiées ailleurs, restent intactes
+    @Modifying
+    @Query("UPDATE monitored_apps SET last_status_was_up = :up, last_notification_sent_at = :sentAt WHERE id = :id")
+    Mono<Integer> updateNotificationState(Long id, boolean up, LocalDateTime sentAt);
 }
\ No newline at end of file
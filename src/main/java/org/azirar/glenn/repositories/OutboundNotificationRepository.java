@@ -0,0 +1,54 @@
+package org.azirar.glenn.repositories;
+
+import org.azirar.glenn.models.OutboundNotification;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+@Repository
+public interface OutboundNotificationRepository extends R2dbcRepository<OutboundNotification, Long> {
+
+    // Endpoints ayant au moins une notification prête à partir
+    @Query("SELECT DISTINCT webhook_url FROM notification_outbox " +
+            "WHERE status = 'PENDING' AND next_attempt_at <= :now")
+    Flux<String> findDueEndpoints(LocalDateTime now);
+
+    // Réserve un lot pour un endpoint (SKIP LOCKED pour plusieurs instances Glenn)
+    @Query("UPDATE notification_outbox SET status = 'SENDING', attempts = attempts + 1, next_attempt_at = :leaseUntil " +
+            "WHERE id IN (SELECT id FROM notification_outbox " +
+            "WHERE webhook_url = :webhookUrl AND status = 'PENDING' AND next_attempt_at <= :now " +
+            "ORDER BY created_at LIMIT :limit FOR UPDATE SKIP LOCKED) RETURNING *")
+    Flux<OutboundNotification> claimBatch(String webhookUrl, LocalDateTime now, LocalDateTime leaseUntil, int limit);
+
+    @Modifying
+    @Query("UPDATE notification_outbox SET status = 'SENT', sent_at = :sentAt, last_error = NULL WHERE id IN (:ids)")
+    Mono<Integer> markSent(Collection<Long> ids, LocalDateTime sentAt);
+
+    // Replanifie un lot en échec, ou l'abandonne après maxAttempts
+    @Modifying
+    @Query("UPDATE notification_outbox SET " +
+            "status = CASE WHEN attempts >= :maxAttempts THEN 'FAILED' ELSE 'PENDING' END, " +
+            "next_attempt_at = :nextAttemptAt, last_error = :error WHERE id IN (:ids)")
+    Mono<Integer> reschedule(Collection<Long> ids, LocalDateTime nextAttemptAt, String error, int maxAttempts);
+
+    // Libère les lots réservés par une instance arrêtée en cours d'envoi, ou les abandonne après maxAttempts
+    @Modifying
+    @Query("UPDATE notification_outbox SET " +
+            "status = CASE WHEN attempts >= :maxAttempts THEN 'FAILED' ELSE 'PENDING' END, " +
+            "last_error = CASE WHEN attempts >= :maxAttempts THEN 'lease expired' ELSE last_error END " +
+            "WHERE status = 'SENDING' AND next_attempt_at < :now")
+    Mono<Integer> releaseExpiredLeases(LocalDateTime now, int maxAttempts);
+
+    @Query("SELECT COUNT(*) FROM notification_outbox WHERE status = 'PENDING'")
+    Mono<Long> countPending();
+
+    @Modifying
+    @Query("DELETE FROM notification_outbox WHERE status IN ('SENT', 'FAILED') AND created_at < :cutoff")
+    Mono<Integer> purgeOlderThan(LocalDateTime cutoff);
+}
@@ -0,0 +1,15 @@
+package org.azirar.glenn.repositories;
+
+import org.azirar.glenn.models.SloDefinition;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Repository
+public interface SloDefinitionRepository extends R2dbcRepository<SloDefinition, Long> {
+
+    Flux<SloDefinition> findByActiveTrue();
+
+    Mono<Void> deleteByAppId(Long appId);
+}
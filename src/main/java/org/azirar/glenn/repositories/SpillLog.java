@@ -0,0 +1,341 @@
+package org.azirar.glenn.repositories;
+
+import lombok.extern.slf4j.Slf4j;
+import org.azirar.glenn.models.StatusCheck;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * Journal local des checks que la base n'a pas pu enregistrer, en attente de relecture.
+ * <p>
+ * Ajout seul, enregistrements {@code [longueur][crc32c][contenu]} comme les segments embarqués,
+ * avec un contenu compact : varints et un octet de drapeaux pour les champs absents.
+ * L'en-tête garde la position de relecture, avancée seulement une fois les checks en base.
+ * Le fichier est vidé quand tout a été rejoué, et compacté quand la partie déjà rejouée
+ * empêche un ajout. Au démarrage, la lecture s'arrête au premier enregistrement incomplet.
+ */
+@Slf4j
+public class SpillLog implements AutoCloseable {
+
+    private static final int MAGIC = 0x474C4E57; // "GLNW"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int RECORD_OVERHEAD = 8;
+    private static final int MAX_PAYLOAD = 8192;
+    private static final int MAX_DETAIL_BYTES = 4096;
+
+    private static final int FLAG_UP = 1;
+    private static final int FLAG_STATUS = 1 << 1;
+    private static final int FLAG_LATENCY = 1 << 2;
+    private static final int FLAG_ERROR = 1 << 3;
+    private static final int FLAG_DETAIL = 1 << 4;
+
+    private final Path path;
+    private final long maxBytes;
+    private final ByteBuffer frame = ByteBuffer.allocate(RECORD_OVERHEAD + MAX_PAYLOAD);
+    private final CRC32C crc = new CRC32C();
+    private FileChannel channel;
+    private long readOffset;
+    private long writeOffset;
+    private long pending;
+    // Octets retirés par les compactages : les positions des lots lus restent valides
+    private long shift;
+
+    /**
+     * Checks lus depuis la position de relecture, et la position qui suit le dernier
+     */
+    public record Batch(List<StatusCheck> checks, long endOffset) {
+    }
+
+    public SpillLog(Path path, long maxBytes) throws IOException {
+        if (maxBytes < HEADER_SIZE + RECORD_OVERHEAD + MAX_PAYLOAD) {
+            throw new IllegalArgumentException("monitoring.spill.max-bytes is too small");
+        }
+        this.path = path;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        recover();
+    }
+
+    private void recover() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        if (channel.size() < HEADER_SIZE || channel.read(header, 0) < HEADER_SIZE
+                || header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            if (channel.size() > 0) {
+                log.warn("⚠️ Unreadable spill file {} - starting a new one", path);
+            }
+            reset();
+            return;
+        }
+        readOffset = Math.max(HEADER_SIZE, Math.min(header.getLong(8), channel.size()));
+        writeOffset = readOffset;
+        while (readFrame(writeOffset) > 0) {
+            writeOffset += RECORD_OVERHEAD + frame.remaining();
+            pending++;
+        }
+        // Reste d'une écriture interrompue
+        channel.truncate(writeOffset);
+    }
+
+    // --- ÉCRITURE ---
+
+    /**
+     * Ajoute les checks dans l'ordre ; retourne le nombre écrit, moins que demandé si le fichier est plein
+     */
+    public synchronized int append(List<StatusCheck> checks) throws IOException {
+        int written = 0;
+        for (StatusCheck check : checks) {
+            encode(check);
+            int size = frame.remaining();
+            if (writeOffset + size > maxBytes) {
+                if (readOffset == HEADER_SIZE) {
+                    break;
+                }
+                compact();
+                if (writeOffset + size > maxBytes) {
+                    break;
+                }
+            }
+            writeFully(frame, writeOffset);
+            writeOffset += size;
+            pending++;
+            written++;
+        }
+        if (written > 0) {
+            channel.force(false);
+        }
+        return written;
+    }
+
+    /**
+     * Lit au plus {@code max} checks depuis la position de relecture, sans l'avancer
+     */
+    public synchronized Batch peek(int max) throws IOException {
+        List<StatusCheck> checks = new ArrayList<>(Math.min(max, (int) Math.min(pending, Integer.MAX_VALUE)));
+        long position = readOffset;
+        while (checks.size() < max && position < writeOffset) {
+            if (readFrame(position) <= 0) {
+                log.error("❌ Corrupted spill record at {} - {} checks after it are lost", position, pending - checks.size());
+                writeOffset = position;
+                pending = checks.size();
+                channel.truncate(writeOffset);
+                break;
+            }
+            position += RECORD_OVERHEAD + frame.remaining();
+            checks.add(decode(frame));
+        }
+        return new Batch(checks, position + shift);
+    }
+
+    /**
+     * Avance la position de relecture après l'écriture en base du lot
+     */
+    public synchronized void commit(Batch batch) throws IOException {
+        readOffset = batch.endOffset() - shift;
+        pending -= batch.checks().size();
+        if (readOffset >= writeOffset) {
+            reset();
+            return;
+        }
+        ByteBuffer offset = ByteBuffer.allocate(Long.BYTES).putLong(0, readOffset);
+        writeFully(offset, 8);
+        channel.force(false);
+    }
+
+    public synchronized boolean isEmpty() {
+        return pending == 0;
+    }
+
+    public synchronized long pendingChecks() {
+        return pending;
+    }
+
+    public synchronized long sizeBytes() {
+        return writeOffset;
+    }
+
+    private void reset() throws IOException {
+        channel.truncate(0);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                .putInt(0, MAGIC)
+                .putInt(4, VERSION)
+                .putLong(8, HEADER_SIZE);
+        writeFully(header, 0);
+        channel.force(true);
+        readOffset = HEADER_SIZE;
+        writeOffset = HEADER_SIZE;
+        pending = 0;
+    }
+
+    /**
+     * Recopie les enregistrements non rejoués en tête d'un nouveau fichier, substitué d'un bloc
+     */
+    private void compact() throws IOException {
+        Path compacted = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel target = FileChannel.open(compacted, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                    .putInt(0, MAGIC)
+                    .putInt(4, VERSION)
+                    .putLong(8, HEADER_SIZE);
+            while (header.hasRemaining()) {
+                target.write(header);
+            }
+            long copied = 0;
+            long length = writeOffset - readOffset;
+            while (copied < length) {
+                copied += channel.transferTo(readOffset + copied, length - copied, target);
+            }
+            target.force(true);
+        }
+        channel.close();
+        Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        log.debug("🗜️ Spill file compacted: {} replayed bytes reclaimed", readOffset - HEADER_SIZE);
+        shift += readOffset - HEADER_SIZE;
+        writeOffset -= readOffset - HEADER_SIZE;
+        readOffset = HEADER_SIZE;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    // --- ENREGISTREMENTS ---
+
+    /**
+     * Charge l'enregistrement à {@code position} dans {@code frame} (positionné sur le contenu) ;
+     * retourne sa longueur, ou -1 s'il est incomplet ou corrompu
+     */
+    private int readFrame(long position) throws IOException {
+        frame.clear().limit(RECORD_OVERHEAD);
+        if (!readFully(frame, position)) {
+            return -1;
+        }
+        int length = frame.getInt(0);
+        int checksum = frame.getInt(4);
+        if (length <= 0 || length > MAX_PAYLOAD) {
+            return -1;
+        }
+        frame.clear().limit(length);
+        if (!readFully(frame, position + RECORD_OVERHEAD)) {
+            return -1;
+        }
+        frame.flip();
+        crc.reset();
+        crc.update(frame.duplicate());
+        return (int) crc.getValue() == checksum ? length : -1;
+    }
+
+    private boolean readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                return false;
+            }
+            position += read;
+        }
+        return true;
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private void encode(StatusCheck check) {
+        frame.clear().position(RECORD_OVERHEAD);
+        int flags = (Boolean.TRUE.equals(check.getIsUp()) ? FLAG_UP : 0)
+                | (check.getStatusCode() != null ? FLAG_STATUS : 0)
+                | (check.getResponseTimeMs() != null ? FLAG_LATENCY : 0)
+                | (check.getErrorCode() != null ? FLAG_ERROR : 0)
+                | (check.getErrorDetail() != null ? FLAG_DETAIL : 0);
+        putVarLong(check.getAppId());
+        putVarLong(zigzag(ArchiveChunkCodec.toMillis(check.getCheckedAt() != null ? check.getCheckedAt() : LocalDateTime.now())));
+        frame.put((byte) flags);
+        if (check.getStatusCode() != null) {
+            putVarLong(zigzag(check.getStatusCode()));
+        }
+        if (check.getResponseTimeMs() != null) {
+            putVarLong(zigzag(check.getResponseTimeMs()));
+        }
+        if (check.getErrorCode() != null) {
+            putVarLong(zigzag(check.getErrorCode()));
+        }
+        if (check.getErrorDetail() != null) {
+            byte[] detail = check.getErrorDetail().getBytes(StandardCharsets.UTF_8);
+            int length = Math.min(detail.length, MAX_DETAIL_BYTES);
+            putVarLong(length);
+            frame.put(detail, 0, length);
+        }
+        int length = frame.position() - RECORD_OVERHEAD;
+        crc.reset();
+        crc.update(frame.array(), RECORD_OVERHEAD, length);
+        frame.putInt(0, length).putInt(4, (int) crc.getValue()).flip();
+    }
+
+    private static StatusCheck decode(ByteBuffer in) {
+        StatusCheck.StatusCheckBuilder check = StatusCheck.builder()
+                .appId(getVarLong(in))
+                .checkedAt(ArchiveChunkCodec.fromMillis(unzigzag(getVarLong(in))));
+        int flags = in.get();
+        check.isUp((flags & FLAG_UP) != 0);
+        if ((flags & FLAG_STATUS) != 0) {
+            check.statusCode((int) unzigzag(getVarLong(in)));
+        }
+        if ((flags & FLAG_LATENCY) != 0) {
+            check.responseTimeMs((int) unzigzag(getVarLong(in)));
+        }
+        if ((flags & FLAG_ERROR) != 0) {
+            check.errorCode((short) unzigzag(getVarLong(in)));
+        }
+        if ((flags & FLAG_DETAIL) != 0) {
+            byte[] detail = new byte[(int) getVarLong(in)];
+            in.get(detail);
+            check.errorDetail(new String(detail, StandardCharsets.UTF_8));
+        }
+        return check.build();
+    }
+
+    private void putVarLong(long value) {
+        while ((value & ~0x7FL) != 0) {
+            frame.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        frame.put((byte) value);
+    }
+
+    private static long getVarLong(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
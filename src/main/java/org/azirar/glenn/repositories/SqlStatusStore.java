@@ -0,0 +1,176 @@
+package org.azirar.glenn.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.azirar.glenn.models.StatusCheck;
+import org.azirar.glenn.models.StorageStats;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.Parameter;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Historique des checks dans la table status_checks (stockage par défaut)
+ */
+@RequiredArgsConstructor
+public class SqlStatusStore implements StatusStore {
+
+    // Lignes par INSERT : 7 paramètres par ligne, sous la limite de PostgreSQL
+    private static final int INSERT_BATCH_SIZE = 1000;
+
+    private final StatusCheckRepository repository;
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator transactionalOperator;
+
+    @Override
+    public Mono<StatusCheck> save(StatusCheck check) {
+        return saveAll(List.of(check)).next();
+    }
+
+    /**
+     * Écrit le lot dans une transaction : interrompu (échec, délai dépassé), il n'en reste rien.
+     * Un check déjà en base (même application, même horodatage) est ignoré : un lot rejoué depuis
+     * le journal local après une validation dont la réponse s'est perdue ne crée pas de doublon.
+     * Retourne tous les checks du lot, enregistrés par ce passage ou déjà présents.
+     */
+    @Override
+    public Flux<StatusCheck> saveAll(List<StatusCheck> checks) {
+        if (checks.isEmpty()) {
+            return Flux.empty();
+        }
+        // Précision du journal local : un check rejoué retrouve exactement sa clé
+        checks.forEach(check -> check.setCheckedAt((check.getCheckedAt() != null ? check.getCheckedAt() : LocalDateTime.now())
+                .truncatedTo(ChronoUnit.MILLIS)));
+        return Flux.fromIterable(checks)
+                .buffer(INSERT_BATCH_SIZE)
+                .concatMap(this::insertBatch)
+                .then()
+                .as(transactionalOperator::transactional)
+                .thenMany(Flux.fromIterable(checks));
+    }
+
+    private Mono<Void> insertBatch(List<StatusCheck> checks) {
+        StringBuilder sql = new StringBuilder("INSERT INTO status_checks " +
+                "(app_id, status_code, is_up, response_time_ms, error_code, error_detail, checked_at) VALUES ");
+        Map<String, Parameter> binds = new HashMap<>();
+        for (int r = 0; r < checks.size(); r++) {
+            StatusCheck check = checks.get(r);
+            sql.append(r == 0 ? "(" : ", (")
+                    .append(":a").append(r).append(", :s").append(r).append(", :u").append(r)
+                    .append(", :r").append(r).append(", :e").append(r).append(", :d").append(r)
+                    .append(", :t").append(r).append(")");
+            binds.put("a" + r, Parameter.fromOrEmpty(check.getAppId(), Long.class));
+            binds.put("s" + r, Parameter.fromOrEmpty(check.getStatusCode(), Integer.class));
+            binds.put("u" + r, Parameter.fromOrEmpty(check.getIsUp(), Boolean.class));
+            binds.put("r" + r, Parameter.fromOrEmpty(check.getResponseTimeMs(), Integer.class));
+            binds.put("e" + r, Parameter.fromOrEmpty(check.getErrorCode(), Short.class));
+            binds.put("d" + r, Parameter.fromOrEmpty(check.getErrorDetail(), String.class));
+            binds.put("t" + r, Parameter.from(check.getCheckedAt()));
+        }
+        sql.append(" ON CONFLICT (app_id, checked_at) DO NOTHING RETURNING id, app_id, checked_at");
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+        for (Map.Entry<String, Parameter> bind : binds.entrySet()) {
+            spec = spec.bind(bind.getKey(), bind.getValue());
+        }
+        Map<String, StatusCheck> byKey = new HashMap<>();
+        checks.forEach(check -> byKey.put(key(check.getAppId(), check.getCheckedAt()), check));
+        // Seules les lignes insérées reviennent : les checks déjà en base gardent leur identifiant absent
+        return spec.map(row -> {
+                    Long id = row.get("id", Long.class);
+                    StatusCheck check = byKey.get(key(row.get("app_id", Long.class), row.get("checked_at", LocalDateTime.class)));
+                    if (check != null) {
+                        check.setId(id);
+                    }
+                    return id;
+                })
+                .all()
+                .then();
+    }
+
+    private static String key(Long appId, LocalDateTime checkedAt) {
+        return appId + "@" + checkedAt;
+    }
+
+    @Override
+    public Flux<StatusCheck> findLatestStatusForAllApps() {
+        return repository.findLatestStatusForAllApps();
+    }
+
+    @Override
+    public Flux<StatusCheck> findLatestForApps(Collection<Long> appIds) {
+        return appIds.isEmpty() ? Flux.empty() : repository.findLatestForApps(appIds);
+    }
+
+    @Override
+    public Flux<StatusCheck> findHistory(Long appId, int limit) {
+        return repository.findTop5000ByAppIdOrderByCheckedAtDesc(appId).take(limit);
+    }
+
+    @Override
+    public Flux<StatusCheck> findOldest(Long appId, int limit) {
+        return repository.findOldestForApp(appId, limit);
+    }
+
+    @Override
+    public Flux<Long> findDistinctAppIds() {
+        return repository.findDistinctAppIds();
+    }
+
+    @Override
+    public Mono<Long> countByAppId(Long appId) {
+        return repository.countByAppId(appId);
+    }
+
+    @Override
+    public Mono<Long> countAll() {
+        return repository.countAll();
+    }
+
+    @Override
+    public Mono<Integer> deleteOldChecksForApp(Long appId, int keepCount) {
+        return repository.deleteOldChecksForApp(appId, keepCount);
+    }
+
+    @Override
+    public Mono<Integer> deleteChecks(Long appId, Collection<Long> ids) {
+        return ids.isEmpty() ? Mono.just(0) : repository.deleteChecksForApp(appId, ids);
+    }
+
+    @Override
+    public Mono<Void> deleteByAppId(Long appId) {
+        return repository.deleteByAppId(appId);
+    }
+
+    /**
+     * Nombre de lignes estimé par les statistiques (pas de COUNT) ; taille moyenne d'une ligne
+     * mesurée sur les derniers checks écrits
+     */
+    @Override
+    public Mono<StorageStats> storageStats() {
+        return databaseClient.sql("SELECT c.reltuples::bigint AS row_estimate, pg_total_relation_size(c.oid) AS total_bytes, " +
+                        "(SELECT avg(pg_column_size(s.*)) FROM (SELECT * FROM status_checks ORDER BY id DESC LIMIT 10000) s) AS row_bytes " +
+                        "FROM pg_class c WHERE c.oid = 'status_checks'::regclass")
+                .map(row -> {
+                    long rows = Math.max(0, row.get("row_estimate", Long.class));
+                    long totalBytes = row.get("total_bytes", Long.class);
+                    Number rowBytes = row.get("row_bytes", Number.class);
+                    return new StorageStats("sql", rows, totalBytes,
+                            rows > 0 ? (double) totalBytes / rows : null,
+                            rowBytes != null ? rowBytes.doubleValue() : null);
+                })
+                .one();
+    }
+
+    @Override
+    public boolean sharesDatabase() {
+        return true;
+    }
+}
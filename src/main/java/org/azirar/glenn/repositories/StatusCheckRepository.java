@@ -9,6 +9,7 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 
 @Repository
 public interface StatusCheckRepository extends R2dbcRepository<StatusCheck, Long> {
@@ -22,6 +23,12 @@ public interface StatusCheckRepository extends R2dbcRepository<StatusCheck, Long
             "(SELECT MAX(s2.checked_at) FROM status_checks s2 WHERE s2.app_id = s1.app_id)")
     Flux<StatusCheck> findLatestStatusForAllApps();
 
+    @Query("SELECT DISTINCT ON (app_id) * FROM status_checks WHERE app_id IN (:appIds) ORDER BY app_id, checked_at DESC")
+    Flux<StatusCheck> findLatestForApps(Collection<Long> appIds);
+
+    @Query("SELECT * FROM status_checks WHERE app_id = :appId ORDER BY checked_at, id LIMIT :limit")
+    Flux<StatusCheck> findOldestForApp(Long appId, int limit);
+
     Mono<Void> deleteByAppId(Long appId);
 
     Flux<StatusCheck> findByAppIdAndCheckedAtAfter(Long appId, LocalDateTime cutoff);
@@ -40,6 +47,10 @@ public interface StatusCheckRepository extends R2dbcRepository<StatusCheck, Long
             "ORDER BY checked_at DESC LIMIT :keepCount)")
     Mono<Integer> deleteOldChecksForApp(Long appId, int keepCount);
 
+    @Modifying
+    @Query("DELETE FROM status_checks WHERE app_id = :appId AND id IN (:ids)")
+    Mono<Integer> deleteChecksForApp(Long appId, Collection<Long> ids);
+
     // Compter total des checks
     @Query("SELECT COUNT(*) FROM status_checks")
     Mono<Long> countAll();
@@ -0,0 +1,54 @@
+package org.azirar.glenn.repositories;
+
+import org.azirar.glenn.models.StatusCheck;
+import org.azirar.glenn.models.StorageStats;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Stockage de l'historique des checks, choisi par {@code storage.type} :
+ * table status_checks ({@code sql}) ou segments de fichiers locaux ({@code embedded}).
+ * Les applications, incidents et notifications restent dans PostgreSQL dans les deux cas.
+ */
+public interface StatusStore {
+
+    Mono<StatusCheck> save(StatusCheck check);
+
+    Flux<StatusCheck> saveAll(List<StatusCheck> checks);
+
+    Flux<StatusCheck> findLatestStatusForAllApps();
+
+    Flux<StatusCheck> findLatestForApps(Collection<Long> appIds);
+
+    // Derniers checks d'une application, du plus récent au plus ancien
+    Flux<StatusCheck> findHistory(Long appId, int limit);
+
+    // Plus anciens checks d'une application, du plus ancien au plus récent (archivage avant suppression)
+    Flux<StatusCheck> findOldest(Long appId, int limit);
+
+    Flux<Long> findDistinctAppIds();
+
+    Mono<Long> countByAppId(Long appId);
+
+    Mono<Long> countAll();
+
+    // Ne garde que les keepCount derniers checks de l'application ; retourne le nombre de checks supprimés
+    Mono<Integer> deleteOldChecksForApp(Long appId, int keepCount);
+
+    // Supprime ces checks de l'application (ceux qui viennent d'être archivés) ; retourne le nombre supprimé
+    Mono<Integer> deleteChecks(Long appId, Collection<Long> ids);
+
+    Mono<Void> deleteByAppId(Long appId);
+
+    // Taille occupée par l'historique, pour suivre le coût par ligne
+    Mono<StorageStats> storageStats();
+
+    /**
+     * Indique si les checks sont dans la même base que les applications et les incidents,
+     * ce qui permet les jointures SQL (recherche paginée, reconstruction des incidents).
+     */
+    boolean sharesDatabase();
+}
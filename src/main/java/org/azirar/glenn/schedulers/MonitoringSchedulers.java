@@ -2,7 +2,9 @@ package org.azirar.glenn.schedulers;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.azirar.glenn.repositories.StatusCheckRepository;
+import org.azirar.glenn.handlers.HistoryArchiveService;
+import org.azirar.glenn.jfr.CleanupChunkEvent;
+import org.azirar.glenn.repositories.StatusStore;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -10,13 +12,19 @@ import org.springframework.stereotype.Component;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+
 @Slf4j
 @Component
 @EnableScheduling
 @RequiredArgsConstructor
 public class MonitoringSchedulers {
 
-    private final StatusCheckRepository statusRepository;
+    private final StatusStore statusRepository;
+    private final HistoryArchiveService historyArchiveService;
+
+    // Un seul nettoyage à la fois : déclenchements horaire, toutes les 6 heures et manuel
+    private final AtomicBoolean running = new AtomicBoolean(false);
 
     @Value("${monitoring.history:5000}")
     private int maxHistoryPerApp;
@@ -27,12 +35,17 @@ public class MonitoringSchedulers {
      */
     @Scheduled(fixedRate = 3600000) // Toutes les heures
     public void cleanupOldHistory() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("⏭️ [SCHEDULER] Cleanup already running, skipped");
+            return;
+        }
         log.info("🧹 [SCHEDULER] Starting cleanup of old status checks. Keeping last {} records per application", maxHistoryPerApp);
 
         statusRepository.findDistinctAppIds()
                 .flatMap(this::cleanupForApp)
                 .doOnComplete(() -> log.info("✅ Scheduled cleanup completed"))
                 .doOnError(error -> log.error("❌ Error during scheduled cleanup: {}", error.getMessage()))
+                .doFinally(signal -> running.set(false))
                 .subscribeOn(Schedulers.boundedElastic())
                 .subscribe();
     }
@@ -48,7 +61,7 @@ public class MonitoringSchedulers {
                         log.info("📊 App {} has {} checks, keeping {}, deleting {}",
                                 appId, count, maxHistoryPerApp, toDelete);
 
-                        return statusRepository.deleteOldChecksForApp(appId, maxHistoryPerApp)
+                        return archiveThenTrim(appId, toDelete)
                                 .doOnNext(deleted -> log.debug("Deleted {} old checks for app {}", deleted, appId))
                                 .then();
                     } else {
@@ -58,6 +71,27 @@ public class MonitoringSchedulers {
                 });
     }
 
+    /**
+     * Archive les {@code toDelete} plus anciens checks et ne supprime que ceux-là : un check arrivé
+     * entre le comptage et la suppression reste dans l'historique jusqu'au passage suivant.
+     * Si l'archivage d'un jour échoue, ses checks restent en place et seront retentés.
+     */
+    private Mono<Integer> archiveThenTrim(Long appId, long toDelete) {
+        return Mono.defer(() -> {
+                    CleanupChunkEvent event = CleanupChunkEvent.begin(appId);
+                    Mono<Integer> deleted = historyArchiveService.isEnabled()
+                            ? historyArchiveService.archiveAndTrim(appId,
+                                    statusRepository.findOldest(appId, (int) Math.min(toDelete, Integer.MAX_VALUE)))
+                            .doOnNext(count -> log.debug("🗄️ Archived {} checks of app {}", count, appId))
+                            : statusRepository.deleteOldChecksForApp(appId, maxHistoryPerApp);
+                    return deleted.doOnNext(event::complete);
+                })
+                .onErrorResume(e -> {
+                    log.error("❌ Archiving checks of app {} failed, trim skipped: {}", appId, e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
     /**
      * Nettoie l'historique toutes les 6 heures (version plus espacée)
      */
@@ -71,6 +105,10 @@ public class MonitoringSchedulers {
      * Méthode pour déclencher un nettoyage manuel pour toutes les apps
      */
     public Mono<Long> triggerManualCleanup() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("⏭️ [MANUAL] Cleanup already running, skipped");
+            return Mono.just(0L);
+        }
         log.info("🧹 [MANUAL] Manual cleanup triggered");
 
         return statusRepository.findDistinctAppIds()
@@ -78,7 +116,7 @@ public class MonitoringSchedulers {
                         statusRepository.countByAppId(appId)
                                 .flatMap(count -> {
                                     if (count > maxHistoryPerApp) {
-                                        return statusRepository.deleteOldChecksForApp(appId, maxHistoryPerApp)
+                                        return archiveThenTrim(appId, count - maxHistoryPerApp)
                                                 .map(deleted -> {
                                                     log.info("✅ Manually deleted {} old checks for app {}", deleted, appId);
                                                     return 1L;
@@ -87,7 +125,8 @@ public class MonitoringSchedulers {
                                     return Mono.just(0L);
                                 })
                 )
-                .count();
+                .count()
+                .doFinally(signal -> running.set(false));
     }
 
     /**
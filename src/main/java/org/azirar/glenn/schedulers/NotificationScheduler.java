@@ -1,43 +1,56 @@
 package org.azirar.glenn.schedulers;
 
 import lombok.extern.slf4j.Slf4j;
+import org.azirar.glenn.handlers.AppRegistry;
+import org.azirar.glenn.handlers.ProbePlanner;
 import org.azirar.glenn.models.MonitoredApp;
+import org.azirar.glenn.models.OutboundNotification;
 import org.azirar.glenn.models.StatusCheck;
 import org.azirar.glenn.repositories.MonitoredAppRepository;
-import org.azirar.glenn.repositories.StatusCheckRepository;
+import org.azirar.glenn.repositories.OutboundNotificationRepository;
+import org.azirar.glenn.repositories.StatusStore;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.web.reactive.function.client.ExchangeStrategies;
-import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Component
 public class NotificationScheduler {
 
     private final MonitoredAppRepository appRepository;
-    private final StatusCheckRepository statusRepository;
-    private final WebClient webClient;
+    private final StatusStore statusRepository;
+    private final OutboundNotificationRepository outboxRepository;
+    private final ProbePlanner probePlanner;
+    private final AppRegistry appRegistry;
+    private final TransactionalOperator transactionalOperator;
+
+    // Nombre de dépendants cités nommément dans l'alerte de l'application amont
+    private static final int MAX_LISTED_DEPENDANTS = 10;
 
     @Value("${notification.reminder-interval:300000}") // 5 minutes par défaut
     private long reminderIntervalMs;
 
     public NotificationScheduler(MonitoredAppRepository appRepository,
-                                 StatusCheckRepository statusRepository) {
+                                 StatusStore statusRepository,
+                                 OutboundNotificationRepository outboxRepository,
+                                 ProbePlanner probePlanner,
+                                 AppRegistry appRegistry,
+                                 TransactionalOperator transactionalOperator) {
         this.appRepository = appRepository;
         this.statusRepository = statusRepository;
-        ExchangeStrategies strategies = ExchangeStrategies.builder()
-                .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(16 * 1024))
-                .build();
-
-        this.webClient = WebClient.builder()
-                .exchangeStrategies(strategies)
-                .build();
+        this.outboxRepository = outboxRepository;
+        this.probePlanner = probePlanner;
+        this.appRegistry = appRegistry;
+        this.transactionalOperator = transactionalOperator;
     }
 
     /**
@@ -47,9 +60,18 @@ public class NotificationScheduler {
     public void processNotifications() {
         log.debug("🔄 Démarrage du traitement des notifications");
 
-        appRepository.findAll()
-                .filter(app -> app.getWebhookUrl() != null && !app.getWebhookUrl().isBlank())
-                .flatMap(this::evaluateNotificationNeeds)
+        appRegistry.findAll()
+                .collectList()
+                .flatMapMany(apps -> {
+                    // Dépendants de chaque application, cités dans son alerte DOWN
+                    Map<Long, List<MonitoredApp>> dependants = apps.stream()
+                            .filter(app -> app.getParentAppId() != null)
+                            .collect(Collectors.groupingBy(MonitoredApp::getParentAppId));
+                    return Flux.fromIterable(apps)
+                            .filter(app -> app.getWebhookUrl() != null && !app.getWebhookUrl().isBlank())
+                            .flatMap(app -> evaluateNotificationNeeds(app,
+                                    dependants.getOrDefault(app.getId(), List.of())));
+                })
                 .doOnComplete(() -> log.debug("✅ Traitement des notifications terminé"))
                 .doOnError(error -> log.error("❌ Erreur lors du traitement des notifications: {}", error.getMessage()))
                 .subscribe();
@@ -58,13 +80,20 @@ public class NotificationScheduler {
     /**
      * Évalue si une notification doit être envoyée pour une application
      */
-    private Mono<Void> evaluateNotificationNeeds(MonitoredApp app) {
+    private Mono<Void> evaluateNotificationNeeds(MonitoredApp app, List<MonitoredApp> dependants) {
         log.debug("🔍 Évaluation des besoins de notification pour: {}", app.getName());
 
         return getLatestStatus(app.getId())
                 .flatMap(currentStatus -> {
                     boolean isCurrentlyUp = currentStatus.getIsUp();
 
+                    // Dépendance amont DOWN : l'alerte est regroupée sous celle de l'amont.
+                    // L'état n'est pas mis à jour, l'app sera notifiée si elle reste DOWN après le retour de l'amont.
+                    if (!isCurrentlyUp && probePlanner.isSuppressed(app)) {
+                        log.debug("🔕 Alerte de {} regroupée sous l'app amont #{}", app.getName(), app.getParentAppId());
+                        return Mono.empty();
+                    }
+
                     // Cas 1: Changement d'état (alerte immédiate)
                     boolean statusChanged = (isCurrentlyUp != app.getLastStatusWasUp());
 
@@ -76,10 +105,10 @@ public class NotificationScheduler {
                                 app.getName(),
                                 app.getLastStatusWasUp() ? "UP" : "DOWN",
                                 isCurrentlyUp ? "UP" : "DOWN");
-                        return sendWebhook(app, currentStatus);
+                        return sendWebhook(app, currentStatus, dependants);
                     } else if (shouldSendReminder) {
                         log.info("⏰ Envoi d'un rappel pour {} (DOWN depuis 5 minutes)", app.getName());
-                        return sendWebhook(app, currentStatus);
+                        return sendWebhook(app, currentStatus, dependants);
                     }
 
                     return Mono.empty();
@@ -110,48 +139,57 @@ public class NotificationScheduler {
      * Récupère le dernier statut pour une application
      */
     private Mono<StatusCheck> getLatestStatus(Long appId) {
-        return statusRepository.findLatestStatusForAllApps()
-                .filter(status -> status.getAppId().equals(appId))
+        return statusRepository.findLatestForApps(List.of(appId))
                 .next();
     }
 
     /**
-     * Envoie une notification via webhook
+     * Place la notification dans la file d'attente durable.
+     * L'envoi effectif (regroupement, retries, rate limit) est fait par WebhookDispatcher.
      */
-    private Mono<Void> sendWebhook(MonitoredApp app, StatusCheck status) {
-        String message = formatMessage(app, status);
-        Object payload = createPayload(app.getWebhookUrl(), message, status.getIsUp());
-
-        log.info("📤 Envoi de notification vers {} pour {}", app.getWebhookUrl(), app.getName());
-
-        return webClient.post()
-                .uri(app.getWebhookUrl())
-                .bodyValue(payload)
-                .retrieve()
-                .bodyToMono(String.class)
-                .doOnNext(response -> log.debug("✅ Réponse webhook: {}", response))
+    private Mono<Void> sendWebhook(MonitoredApp app, StatusCheck status, List<MonitoredApp> dependants) {
+        LocalDateTime now = LocalDateTime.now();
+        OutboundNotification notification = OutboundNotification.builder()
+                .appId(app.getId())
+                .webhookUrl(app.getWebhookUrl())
+                .isUp(status.getIsUp())
+                .message(formatMessage(app, status, dependants))
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .build();
+
+        log.info("📥 Notification mise en file pour {} vers {}", app.getName(), app.getWebhookUrl());
+
+        // Mise en file et état de notification ensemble : un échec n'en laisse aucun des deux
+        return outboxRepository.save(notification)
                 .then(updateAppAfterNotification(app, status))
+                .as(transactionalOperator::transactional)
+                .then(appRegistry.refresh(app.getId()))
                 .onErrorResume(e -> {
-                    log.error("❌ Erreur webhook pour {}: {}", app.getName(), e.getMessage());
+                    log.error("❌ Erreur de mise en file pour {}: {}", app.getName(), e.getMessage());
                     return Mono.empty();
                 });
     }
 
     /**
-     * Met à jour l'application après l'envoi d'une notification
+     * Enregistre l'état de notification de l'application. L'instance vient du registre et n'est
+     * pas modifiée : le registre relit la ligne une fois l'écriture validée, et garde l'ancien
+     * état si elle échoue (la notification sera retentée au passage suivant).
      */
     private Mono<Void> updateAppAfterNotification(MonitoredApp app, StatusCheck status) {
-        app.setLastStatusWasUp(status.getIsUp());
-        app.setLastNotificationSentAt(LocalDateTime.now());
-        return appRepository.save(app).then();
+        return appRepository.updateNotificationState(app.getId(), status.getIsUp(), LocalDateTime.now()).then();
     }
 
 
-    private String formatMessage(MonitoredApp app, StatusCheck status) {
+    private String formatMessage(MonitoredApp app, StatusCheck status, List<MonitoredApp> dependants) {
         String emoji = status.getIsUp() ? "✅" : "🔴";
         String state = status.getIsUp() ? "IS NOW OPERATIONAL" : "IS DOWN";
         String errorInfo = status.getErrorMessage() != null ?
                 String.format("\n> ❌ Error: %s", status.getErrorMessage()) : "";
+        if (!status.getIsUp() && !dependants.isEmpty()) {
+            errorInfo += String.format("\n> 🔗 Dependants on hold (%d): %s",
+                    dependants.size(), formatDependants(dependants));
+        }
 
         return String.format(
                 "%s **%s** %s\n" +
@@ -168,75 +206,14 @@ public class NotificationScheduler {
         );
     }
 
-    /**
-     * Creates payload adapted to the target platform
-     */
-    private Object createPayload(String webhookUrl, String message, boolean isUp) {
-        String url = webhookUrl.toLowerCase();
-
-        if (url.contains("teams") || url.contains("office.com") || url.contains("dynamics.com")) {
-            return createTeamsPayload(message, isUp);
-        } else if (url.contains("discord")) {
-            return createDiscordPayload(message, isUp);
-        } else {
-            // Default Slack/Mattermost format
-            return createSlackPayload(message, isUp);
-        }
-    }
-
-    /**
-     * Payload for Slack / Mattermost
-     */
-    private Map<String, Object> createSlackPayload(String message, boolean isUp) {
-        String color = isUp ? "good" : "danger";
-        return Map.of(
-                "attachments", List.of(Map.of(
-                        "color", color,
-                        "text", message,
-                        "mrkdwn_in", List.of("text")
-                ))
-        );
-    }
-
-    /**
-     * Payload for Discord
-     */
-    private Map<String, Object> createDiscordPayload(String message, boolean isUp) {
-        int color = isUp ? 0x00FF00 : 0xFF0000;
-        return Map.of(
-                "embeds", List.of(Map.of(
-                        "description", message,
-                        "color", color,
-                        "timestamp", java.time.Instant.now().toString()
-                ))
-        );
-    }
-
-    /**
-     * Payload for Microsoft Teams (Adaptive Card)
-     */
-    private Map<String, Object> createTeamsPayload(String message, boolean isUp) {
-        String color = isUp ? "good" : "attention";
-        return Map.of(
-                "type", "message",
-                "attachments", List.of(Map.of(
-                        "contentType", "application/vnd.microsoft.card.adaptive",
-                        "content", Map.of(
-                                "type", "AdaptiveCard",
-                                "$schema", "http://adaptivecards.io/schemas/adaptive-card.json",
-                                "version", "1.4",
-                                "body", List.of(
-                                        Map.of(
-                                                "type", "TextBlock",
-                                                "text", message,
-                                                "wrap", true,
-                                                "size", "Medium",
-                                                "weight", "Bolder",
-                                                "color", color
-                                        )
-                                )
-                        )
-                ))
-        );
+    private String formatDependants(List<MonitoredApp> dependants) {
+        String names = dependants.stream()
+                .map(MonitoredApp::getName)
+                .filter(Objects::nonNull)
+                .limit(MAX_LISTED_DEPENDANTS)
+                .collect(Collectors.joining(", "));
+        return dependants.size() > MAX_LISTED_DEPENDANTS
+                ? names + String.format(" and %d more", dependants.size() - MAX_LISTED_DEPENDANTS)
+                : names;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,259 @@
+package org.azirar.glenn.schedulers;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.azirar.glenn.jfr.WebhookDeliveryEvent;
+import org.azirar.glenn.models.OutboundNotification;
+import org.azirar.glenn.repositories.OutboundNotificationRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Vide la file {@code notification_outbox} : un envoi à la fois par webhook,
+ * regroupement des rafales en un message de synthèse, retries avec backoff exponentiel.
+ */
+@Slf4j
+@Component
+public class WebhookDispatcher {
+
+    private static final int MAX_DIGEST_LENGTH = 3500;
+
+    private final OutboundNotificationRepository outboxRepository;
+    private final WebClient webClient;
+
+    private final AtomicLong queueDepth = new AtomicLong();
+    private final Timer deliveryLatency;
+    private final Counter deliveredCounter;
+    private final Counter failedCounter;
+
+    // Prochain envoi autorisé par webhook (rate limit par endpoint)
+    private final Map<String, Long> nextAllowedSend = new ConcurrentHashMap<>();
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    @Value("${notification.dispatch.min-interval-per-endpoint:2000}")
+    private long minIntervalPerEndpoint;
+
+    @Value("${notification.dispatch.digest-max:50}")
+    private int digestMax;
+
+    @Value("${notification.dispatch.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${notification.dispatch.backoff-initial:5000}")
+    private long backoffInitial;
+
+    @Value("${notification.dispatch.backoff-max:600000}")
+    private long backoffMax;
+
+    @Value("${notification.dispatch.retention-days:7}")
+    private int retentionDays;
+
+    public WebhookDispatcher(OutboundNotificationRepository outboxRepository, MeterRegistry meterRegistry) {
+        this.outboxRepository = outboxRepository;
+        ExchangeStrategies strategies = ExchangeStrategies.builder()
+                .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(16 * 1024))
+                .build();
+
+        this.webClient = WebClient.builder()
+                .exchangeStrategies(strategies)
+                .build();
+
+        meterRegistry.gauge("glenn.notifications.queue.depth", queueDepth);
+        this.deliveryLatency = Timer.builder("glenn.notifications.delivery.latency")
+                .description("Temps entre la mise en file et l'envoi effectif")
+                .register(meterRegistry);
+        this.deliveredCounter = Counter.builder("glenn.notifications.delivery")
+                .tag("outcome", "success")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("glenn.notifications.delivery")
+                .tag("outcome", "failure")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Envoie les notifications dues, un lot par webhook
+     */
+    @Scheduled(fixedDelayString = "${notification.dispatch.interval:5000}")
+    public void dispatch() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+
+        outboxRepository.releaseExpiredLeases(now, maxAttempts)
+                .thenMany(outboxRepository.findDueEndpoints(now))
+                .filter(this::isSendAllowed)
+                .flatMap(webhookUrl -> outboxRepository.claimBatch(webhookUrl, now, now.plusMinutes(1), digestMax)
+                        .collectList()
+                        .filter(batch -> !batch.isEmpty())
+                        .flatMap(batch -> deliver(webhookUrl, batch)))
+                .then(outboxRepository.countPending())
+                .doOnNext(queueDepth::set)
+                .doOnError(error -> log.error("❌ Erreur lors de l'envoi des notifications: {}", error.getMessage()))
+                .doFinally(signal -> running.set(false))
+                .subscribe();
+    }
+
+    /**
+     * Purge quotidienne des notifications envoyées ou abandonnées
+     */
+    @Scheduled(cron = "0 30 3 * * ?")
+    public void purge() {
+        outboxRepository.purgeOlderThan(LocalDateTime.now().minusDays(retentionDays))
+                .doOnNext(deleted -> log.info("🧹 {} notifications purgées", deleted))
+                .subscribe();
+    }
+
+    private boolean isSendAllowed(String webhookUrl) {
+        return nextAllowedSend.getOrDefault(webhookUrl, 0L) <= System.currentTimeMillis();
+    }
+
+    private Mono<Void> deliver(String webhookUrl, List<OutboundNotification> batch) {
+        nextAllowedSend.put(webhookUrl, System.currentTimeMillis() + minIntervalPerEndpoint);
+
+        boolean allUp = batch.stream().allMatch(n -> Boolean.TRUE.equals(n.getIsUp()));
+        String message = batch.size() == 1 ? batch.get(0).getMessage() : formatDigest(batch);
+        List<Long> ids = batch.stream().map(OutboundNotification::getId).toList();
+
+        int attempt = batch.stream().mapToInt(OutboundNotification::getAttempts).max().orElse(1);
+        WebhookDeliveryEvent event = WebhookDeliveryEvent.begin(webhookUrl, batch.size(), attempt);
+
+        log.info("📤 Envoi de {} notification(s) vers {}", batch.size(), webhookUrl);
+
+        return webClient.post()
+                .uri(webhookUrl)
+                .bodyValue(createPayload(webhookUrl, message, allUp))
+                .retrieve()
+                .toBodilessEntity()
+                .timeout(Duration.ofSeconds(10))
+                .doOnSuccess(response -> event.complete(null))
+                .doOnError(event::complete)
+                .thenReturn(true)
+                // Seul l'échec de l'envoi replanifie le lot : une erreur après coup ne doit pas le renvoyer
+                .onErrorResume(e -> {
+                    long delay = Math.min(backoffMax, backoffInitial * (1L << Math.min(attempt - 1, 20)));
+                    log.warn("⚠️ Échec webhook {} (tentative {}), nouvel essai dans {} ms: {}",
+                            webhookUrl, attempt, delay, e.getMessage());
+                    failedCounter.increment(batch.size());
+                    // On respecte aussi le backoff pour les nouvelles notifications de cet endpoint
+                    nextAllowedSend.put(webhookUrl, System.currentTimeMillis() + delay);
+                    return outboxRepository.reschedule(ids, LocalDateTime.now().plus(Duration.ofMillis(delay)),
+                            e.getMessage(), maxAttempts).thenReturn(false);
+                })
+                .filter(delivered -> delivered)
+                .flatMap(delivered -> {
+                    LocalDateTime sentAt = LocalDateTime.now();
+                    batch.forEach(n -> deliveryLatency.record(Duration.between(n.getCreatedAt(), sentAt)));
+                    deliveredCounter.increment(batch.size());
+                    return outboxRepository.markSent(ids, sentAt)
+                            .retryWhen(Retry.backoff(3, Duration.ofMillis(500)))
+                            // Le bail expirera et le lot repartira : c'est le seul doublon possible
+                            .doOnError(e -> log.error("❌ Webhook {} livré mais non marqué envoyé: {}",
+                                    webhookUrl, e.getMessage()))
+                            .onErrorResume(e -> Mono.empty());
+                })
+                .then();
+    }
+
+    private String formatDigest(List<OutboundNotification> batch) {
+        long down = batch.stream().filter(n -> !Boolean.TRUE.equals(n.getIsUp())).count();
+        StringBuilder digest = new StringBuilder(String.format(
+                "📣 **%d status changes** (%d down, %d recovered)", batch.size(), down, batch.size() - down));
+        for (int i = 0; i < batch.size(); i++) {
+            // Les plateformes limitent la taille d'un message (ex: 4096 caractères pour Discord)
+            if (digest.length() > MAX_DIGEST_LENGTH) {
+                digest.append(String.format("\n\n… and %d more", batch.size() - i));
+                break;
+            }
+            digest.append("\n\n").append(batch.get(i).getMessage());
+        }
+        return digest.toString();
+    }
+
+    /**
+     * Creates payload adapted to the target platform
+     */
+    private Object createPayload(String webhookUrl, String message, boolean isUp) {
+        String url = webhookUrl.toLowerCase();
+
+        if (url.contains("teams") || url.contains("office.com") || url.contains("dynamics.com")) {
+            return createTeamsPayload(message, isUp);
+        } else if (url.contains("discord")) {
+            return createDiscordPayload(message, isUp);
+        } else {
+            // Default Slack/Mattermost format
+            return createSlackPayload(message, isUp);
+        }
+    }
+
+    /**
+     * Payload for Slack / Mattermost
+     */
+    private Map<String, Object> createSlackPayload(String message, boolean isUp) {
+        String color = isUp ? "good" : "danger";
+        return Map.of(
+                "attachments", List.of(Map.of(
+                        "color", color,
+                        "text", message,
+                        "mrkdwn_in", List.of("text")
+                ))
+        );
+    }
+
+    /**
+     * Payload for Discord
+     */
+    private Map<String, Object> createDiscordPayload(String message, boolean isUp) {
+        int color = isUp ? 0x00FF00 : 0xFF0000;
+        return Map.of(
+                "embeds", List.of(Map.of(
+                        "description", message,
+                        "color", color,
+                        "timestamp", java.time.Instant.now().toString()
+                ))
+        );
+    }
+
+    /**
+     * Payload for Microsoft Teams (Adaptive Card)
+     */
+    private Map<String, Object> createTeamsPayload(String message, boolean isUp) {
+        String color = isUp ? "good" : "attention";
+        return Map.of(
+                "type", "message",
+                "attachments", List.of(Map.of(
+                        "contentType", "application/vnd.microsoft.card.adaptive",
+                        "content", Map.of(
+                                "type", "AdaptiveCard",
+                                "$schema", "http://adaptivecards.io/schemas/adaptive-card.json",
+                                "version", "1.4",
+                                "body", List.of(
+                                        Map.of(
+                                                "type", "TextBlock",
+                                                "text", message,
+                                                "wrap", true,
+                                                "size", "Medium",
+                                                "weight", "Bolder",
+                                                "color", color
+                                        )
+                                )
+                        )
+                ))
+        );
+    }
+}